@@ -0,0 +1,50 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.ProjetoCoffeestockApplication;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public final class BenchmarkCatalog {
+
+    private static final CoffeeType[] TYPES = CoffeeType.values();
+
+    private BenchmarkCatalog() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        args.add("--logging.level.root=WARN");
+        args.add("--spring.main.banner-mode=off");
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(ProjetoCoffeestockApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    public static List<Coffee> seed(CoffeeRepository coffeeRepository, int catalogSize) {
+        List<Coffee> coffees = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            coffees.add(coffee(i));
+        }
+        return coffeeRepository.saveAll(coffees);
+    }
+
+    public static Coffee coffee(int index) {
+        return new Coffee(null, name(index), "Brand-" + (index % 20), 500, index % 100, TYPES[index % TYPES.length], null);
+    }
+
+    public static String name(int index) {
+        return "Coffee-" + index;
+    }
+}
@@ -0,0 +1,75 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.service.CoffeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeInsertBenchmark {
+
+    private static final int BULK_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private CoffeeService coffeeService;
+    private CoffeeRepository coffeeRepository;
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        coffeeService = context.getBean(CoffeeService.class);
+        coffeeRepository = context.getBean(CoffeeRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearCatalog() {
+        coffeeRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CoffeeDTO createCoffee() throws CoffeeAlreadyRegisteredException {
+        return coffeeService.createCoffee(coffeeMapper.toDTO(BenchmarkCatalog.coffee(next++)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<Coffee> saveAll() {
+        List<Coffee> coffees = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            coffees.add(BenchmarkCatalog.coffee(next++));
+        }
+        return coffeeRepository.saveAll(coffees);
+    }
+}
@@ -0,0 +1,51 @@
+package com.projetocoffeestock.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeJsonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int catalogSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<CoffeeDTO> coffees;
+
+    @Setup
+    public void setUp() {
+        coffees = IntStream.range(0, catalogSize)
+                .mapToObj(BenchmarkCatalog::coffee)
+                .map(CoffeeMapper.INSTANCE::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(coffees);
+    }
+}
@@ -0,0 +1,64 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.service.CoffeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the full entity list with the summary projection. Run it with
+ * {@code -prof gc} to get the bytes allocated per call next to the latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeListBenchmark {
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CoffeeService coffeeService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        coffeeService = context.getBean(CoffeeService.class);
+        BenchmarkCatalog.seed(context.getBean(CoffeeRepository.class), catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CoffeeDTO> listAll() {
+        return coffeeService.listAll();
+    }
+
+    @Benchmark
+    public List<CoffeeSummaryDTO> listSummaries() {
+        return coffeeService.listSummaries();
+    }
+}
@@ -0,0 +1,48 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeMapperBenchmark {
+
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+
+    private Coffee coffee;
+    private CoffeeDTO coffeeDTO;
+
+    @Setup
+    public void setUp() {
+        coffee = BenchmarkCatalog.coffee(1);
+        coffee.setId(1L);
+        coffeeDTO = coffeeMapper.toDTO(coffee);
+    }
+
+    @Benchmark
+    public CoffeeDTO toDTO() {
+        return coffeeMapper.toDTO(coffee);
+    }
+
+    @Benchmark
+    public Coffee toModel() {
+        return coffeeMapper.toModel(coffeeDTO);
+    }
+}
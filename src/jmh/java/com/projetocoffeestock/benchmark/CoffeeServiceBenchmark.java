@@ -0,0 +1,72 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.service.CoffeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeServiceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CoffeeService coffeeService;
+    private long[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        coffeeService = context.getBean(CoffeeService.class);
+        List<Coffee> coffees = BenchmarkCatalog.seed(context.getBean(CoffeeRepository.class), catalogSize);
+        ids = coffees.stream().mapToLong(Coffee::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CoffeeDTO findByName() throws CoffeeNotFoundException {
+        return coffeeService.findByName(BenchmarkCatalog.name(next++ % ids.length));
+    }
+
+    @Benchmark
+    public CoffeeDTO increment() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        int step = next++;
+        int quantityToIncrement = (step & 1) == 0 ? 1 : -1;
+        return coffeeService.increment(ids[(step >>> 1) % ids.length], quantityToIncrement);
+    }
+
+    @Benchmark
+    public List<CoffeeDTO> listAll() {
+        return coffeeService.listAll();
+    }
+}
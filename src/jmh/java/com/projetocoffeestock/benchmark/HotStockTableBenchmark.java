@@ -0,0 +1,79 @@
+package com.projetocoffeestock.benchmark;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.service.CoffeeService;
+import com.projetocoffeestock.service.HotStockTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares findByName with and without the hot stock table, on its own and right
+ * after an increment of the same coffee, which is when the name cache has to reload
+ * the entity. Run it with {@code -prof gc} to get the bytes allocated per call and
+ * the collections and time spent in GC during each run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotStockTableBenchmark {
+
+    @Param({"false", "true"})
+    private boolean hotTable;
+
+    @Param({"1000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private CoffeeService coffeeService;
+    private long[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start("coffee.stock.hot-table.enabled=" + hotTable);
+        coffeeService = context.getBean(CoffeeService.class);
+        List<Coffee> coffees = BenchmarkCatalog.seed(context.getBean(CoffeeRepository.class), catalogSize);
+        ids = coffees.stream().mapToLong(Coffee::getId).toArray();
+        context.getBean(HotStockTable.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CoffeeDTO findByName() throws CoffeeNotFoundException {
+        return coffeeService.findByName(BenchmarkCatalog.name(next++ % ids.length));
+    }
+
+    @Benchmark
+    public CoffeeDTO incrementThenFindByName() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        int step = next++;
+        int index = (step >>> 1) % ids.length;
+        coffeeService.increment(ids[index], (step & 1) == 0 ? 1 : -1);
+        return coffeeService.findByName(BenchmarkCatalog.name(index));
+    }
+}
@@ -0,0 +1,176 @@
+package com.projetocoffeestock.loadtest;
+
+import com.projetocoffeestock.ProjetoCoffeestockApplication;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the blocking controller with the async one under the same number of
+ * concurrent clients. The name cache is disabled so every lookup goes to the
+ * database, and Tomcat runs with a small pool so the servlet threads are the
+ * first thing to saturate in blocking mode.
+ *
+ * System properties: loadtest.clients (default 256), loadtest.seconds (default 15),
+ * loadtest.tomcat-threads (default 32), loadtest.catalog-size (default 1000).
+ */
+public final class AsyncModeLoadTest {
+
+    private static final CoffeeType[] TYPES = CoffeeType.values();
+
+    private AsyncModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("loadtest.clients", 256);
+        int seconds = Integer.getInteger("loadtest.seconds", 15);
+        int tomcatThreads = Integer.getInteger("loadtest.tomcat-threads", 32);
+        int catalogSize = Integer.getInteger("loadtest.catalog-size", 1000);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjetoCoffeestockApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--server.tomcat.accept-count=" + clients * 2,
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--coffee.async.enabled=true",
+                "--coffee.cache.by-name.maximum-size=0",
+                "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off")) {
+            seed(context.getBean(CoffeeRepository.class), catalogSize);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            run("warmup", baseUrl + "/api/v1/coffees/", clients, 5, catalogSize);
+            Result blocking = run("blocking", baseUrl + "/api/v1/coffees/", clients, seconds, catalogSize);
+            run("warmup", baseUrl + "/api/v1/async/coffees/", clients, 5, catalogSize);
+            Result async = run("async", baseUrl + "/api/v1/async/coffees/", clients, seconds, catalogSize);
+
+            System.out.println();
+            System.out.printf("clients=%d tomcat-threads=%d seconds=%d%n", clients, tomcatThreads, seconds);
+            System.out.println(blocking);
+            System.out.println(async);
+        }
+    }
+
+    private static void seed(CoffeeRepository coffeeRepository, int catalogSize) {
+        List<Coffee> coffees = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            coffees.add(new Coffee(null, "Coffee-" + i, "Brand-" + (i % 20), 500, i % 100, TYPES[i % TYPES.length], null));
+        }
+        coffeeRepository.saveAll(coffees);
+    }
+
+    private static Result run(String mode, String url, int clients, int seconds, int catalogSize) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<ClientStats>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                ClientStats stats = new ClientStats();
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "Coffee-" + ThreadLocalRandom.current().nextInt(catalogSize)))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        stats.record(status, System.nanoTime() - start);
+                    } catch (Exception e) {
+                        stats.errors++;
+                    }
+                }
+                return stats;
+            }));
+        }
+        Result result = new Result(mode, seconds);
+        for (Future<ClientStats> future : futures) {
+            result.add(future.get());
+        }
+        executor.shutdown();
+        return result;
+    }
+
+    private static final class ClientStats {
+
+        private long ok;
+        private long rejected;
+        private long errors;
+        private long[] latencies = new long[1024];
+        private int count;
+
+        private void record(int status, long latencyNanos) {
+            if (status == 200) {
+                ok++;
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+    }
+
+    private static final class Result {
+
+        private final String mode;
+        private final int seconds;
+        private long ok;
+        private long rejected;
+        private long errors;
+        private long[] latencies = new long[0];
+
+        private Result(String mode, int seconds) {
+            this.mode = mode;
+            this.seconds = seconds;
+        }
+
+        private void add(ClientStats stats) {
+            ok += stats.ok;
+            rejected += stats.rejected;
+            errors += stats.errors;
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + stats.count);
+            System.arraycopy(stats.latencies, 0, latencies, offset, stats.count);
+        }
+
+        private double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            Arrays.sort(latencies);
+            return String.format("%-8s ok=%d rejected=%d errors=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms p99.9=%.2fms",
+                    mode, ok, rejected, errors, (double) ok / seconds,
+                    percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999));
+        }
+    }
+}
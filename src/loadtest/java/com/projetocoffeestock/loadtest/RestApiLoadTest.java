@@ -0,0 +1,339 @@
+package com.projetocoffeestock.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projetocoffeestock.ProjetoCoffeestockApplication;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives mixed workloads against the REST API of an application booted on a random
+ * port with the in-memory H2 database, one scenario after the other:
+ * <ul>
+ *     <li>read-heavy: findByName on random coffees with a few increments mixed in</li>
+ *     <li>hot-increment: every client increments the same handful of coffees</li>
+ *     <li>list-growth: full and summary listings while one client keeps creating coffees</li>
+ *     <li>create-burst: clients create coffees in bursts separated by a pause</li>
+ * </ul>
+ * Each scenario reports throughput and p50/p99/p99.9 latency per operation, recorded
+ * with HdrHistogram, and the results are written as JSON. When a baseline result file
+ * is given, the run fails if any operation lost more throughput, gained more p99
+ * latency or a higher error rate than the tolerance allows, so it can be used as a
+ * regression gate.
+ *
+ * System properties: loadtest.clients (default 64), loadtest.seconds (default 10),
+ * loadtest.warmup-seconds (default 3), loadtest.catalog-size (default 1000),
+ * loadtest.hot-ids (default 4), loadtest.burst-size (default 50),
+ * loadtest.burst-pause-ms (default 500), loadtest.scenarios (default all),
+ * loadtest.result-file (default target/loadtest-rest-api.json), loadtest.baseline
+ * (no default) and loadtest.tolerance (default 0.25).
+ */
+public final class RestApiLoadTest {
+
+    private static final CoffeeType[] TYPES = CoffeeType.values();
+    private static final String JSON = "application/json";
+
+    private RestApiLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("loadtest.clients", 64);
+        int seconds = Integer.getInteger("loadtest.seconds", 10);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 3);
+        int catalogSize = Integer.getInteger("loadtest.catalog-size", 1000);
+        int hotIds = Integer.getInteger("loadtest.hot-ids", 4);
+        int burstSize = Integer.getInteger("loadtest.burst-size", 50);
+        long burstPauseMillis = Long.getLong("loadtest.burst-pause-ms", 500);
+        List<String> scenarios = Arrays.asList(System.getProperty("loadtest.scenarios", "read-heavy,hot-increment,list-growth,create-burst").split(","));
+        File resultFile = new File(System.getProperty("loadtest.result-file", "target/loadtest-rest-api.json"));
+        String baseline = System.getProperty("loadtest.baseline");
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProjetoCoffeestockApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.accept-count=" + clients * 2,
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off")) {
+            long[] ids = seed(context.getBean(CoffeeRepository.class), catalogSize);
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/coffees";
+            AtomicLong createdNames = new AtomicLong();
+
+            List<Workload> workloads = new ArrayList<>();
+            workloads.add(new Workload("read-heavy") {
+                @Override
+                Call next(int client, long step, ThreadLocalRandom random) {
+                    if (random.nextInt(100) < 5) {
+                        return increment(baseUrl, ids[random.nextInt(ids.length)], (step & 1) == 0 ? 1 : -1);
+                    }
+                    return new Call("findByName", get(baseUrl + "/Coffee-" + random.nextInt(catalogSize)));
+                }
+            });
+            workloads.add(new Workload("hot-increment") {
+                @Override
+                Call next(int client, long step, ThreadLocalRandom random) {
+                    return increment(baseUrl, ids[random.nextInt(Math.min(hotIds, ids.length))], (step & 1) == 0 ? 1 : -1);
+                }
+            });
+            workloads.add(new Workload("list-growth") {
+                @Override
+                Call next(int client, long step, ThreadLocalRandom random) {
+                    if (client == 0) {
+                        return create(baseUrl, "Grown-" + createdNames.incrementAndGet());
+                    }
+                    return (step & 1) == 0
+                            ? new Call("listAll", get(baseUrl))
+                            : new Call("listSummaries", get(baseUrl + "?view=summary"));
+                }
+            });
+            workloads.add(new Workload("create-burst") {
+                @Override
+                Call next(int client, long step, ThreadLocalRandom random) {
+                    return create(baseUrl, "Burst-" + createdNames.incrementAndGet());
+                }
+
+                @Override
+                long pauseMillisAfter(long step) {
+                    return (step + 1) % burstSize == 0 ? burstPauseMillis : 0;
+                }
+            });
+
+            ObjectNode results = new ObjectMapper().createObjectNode();
+            for (Workload workload : workloads) {
+                if (!scenarios.contains(workload.name)) {
+                    continue;
+                }
+                run(workload, clients, warmupSeconds);
+                Result result = run(workload, clients, seconds);
+                System.out.println(result);
+                results.set(workload.name, result.toJson());
+            }
+            System.out.printf("clients=%d seconds=%d catalog-size=%d final-catalog-size=%d%n",
+                    clients, seconds, catalogSize, context.getBean(CoffeeRepository.class).count());
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            resultFile.getAbsoluteFile().getParentFile().mkdirs();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile, results);
+            System.out.println("results written to " + resultFile);
+            if (baseline != null) {
+                List<String> regressions = compare(objectMapper.readTree(new File(baseline)), results, tolerance);
+                if (!regressions.isEmpty()) {
+                    regressions.forEach(System.out::println);
+                    throw new IllegalStateException(regressions.size() + " operation(s) regressed against " + baseline);
+                }
+                System.out.println("no regression against " + baseline);
+            }
+        }
+    }
+
+    private static long[] seed(CoffeeRepository coffeeRepository, int catalogSize) {
+        List<Coffee> coffees = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            coffees.add(new Coffee(null, "Coffee-" + i, "Brand-" + (i % 20), 500, 250, TYPES[i % TYPES.length], null));
+        }
+        return coffeeRepository.saveAll(coffees).stream().mapToLong(Coffee::getId).toArray();
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static Call increment(String baseUrl, long id, int quantity) {
+        return new Call("increment", HttpRequest.newBuilder(URI.create(baseUrl + "/" + id + "/increment"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", JSON)
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"quantity\":" + quantity + "}"))
+                .build());
+    }
+
+    private static Call create(String baseUrl, String name) {
+        String body = String.format("{\"name\":\"%s\",\"brand\":\"Load\",\"max\":500,\"quantity\":10,\"type\":\"%s\"}", name, TYPES[0]);
+        return new Call("create", HttpRequest.newBuilder(URI.create(baseUrl))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private static Result run(Workload workload, int clients, int seconds) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Map<String, OperationStats>>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            futures.add(executor.submit(() -> {
+                Map<String, OperationStats> stats = new TreeMap<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (long step = 0; System.nanoTime() < deadline; step++) {
+                    Call call = workload.next(client, step, random);
+                    OperationStats operationStats = stats.computeIfAbsent(call.operation, operation -> new OperationStats());
+                    long start = System.nanoTime();
+                    try {
+                        int status = httpClient.send(call.request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        operationStats.record(status, System.nanoTime() - start);
+                    } catch (Exception e) {
+                        operationStats.errors++;
+                    }
+                    long pauseMillis = workload.pauseMillisAfter(step);
+                    if (pauseMillis > 0) {
+                        Thread.sleep(pauseMillis);
+                    }
+                }
+                return stats;
+            }));
+        }
+        Result result = new Result(workload.name, seconds);
+        for (Future<Map<String, OperationStats>> future : futures) {
+            future.get().forEach(result::add);
+        }
+        executor.shutdown();
+        return result;
+    }
+
+    private static List<String> compare(JsonNode baseline, JsonNode current, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        baseline.fields().forEachRemaining(scenario -> scenario.getValue().fields().forEachRemaining(operation -> {
+            JsonNode measured = current.path(scenario.getKey()).path(operation.getKey());
+            if (measured.isMissingNode()) {
+                return;
+            }
+            String key = scenario.getKey() + "/" + operation.getKey();
+            double baselineThroughput = operation.getValue().path("throughput").asDouble();
+            double baselineP99 = operation.getValue().path("p99Millis").asDouble();
+            if (measured.path("throughput").asDouble() < baselineThroughput * (1 - tolerance)) {
+                regressions.add(String.format("%s throughput %.0f req/s below baseline %.0f req/s", key, measured.path("throughput").asDouble(), baselineThroughput));
+            }
+            if (measured.path("p99Millis").asDouble() > baselineP99 * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2fms above baseline %.2fms", key, measured.path("p99Millis").asDouble(), baselineP99));
+            }
+            double baselineErrorRate = errorRate(operation.getValue());
+            if (errorRate(measured) > baselineErrorRate * (1 + tolerance)) {
+                regressions.add(String.format("%s error rate %.2f%% above baseline %.2f%%", key, errorRate(measured) * 100, baselineErrorRate * 100));
+            }
+        }));
+        return regressions;
+    }
+
+    private static double errorRate(JsonNode operation) {
+        long errors = operation.path("errors").asLong();
+        long requests = operation.path("ok").asLong() + errors;
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    private abstract static class Workload {
+
+        private final String name;
+
+        private Workload(String name) {
+            this.name = name;
+        }
+
+        abstract Call next(int client, long step, ThreadLocalRandom random);
+
+        long pauseMillisAfter(long step) {
+            return 0;
+        }
+    }
+
+    private static final class Call {
+
+        private final String operation;
+        private final HttpRequest request;
+
+        private Call(String operation, HttpRequest request) {
+            this.operation = operation;
+            this.request = request;
+        }
+    }
+
+    private static final class OperationStats {
+
+        private final Histogram latencies = new Histogram(3);
+        private long ok;
+        private long errors;
+
+        private void record(int status, long latencyNanos) {
+            if (status >= 200 && status < 300) {
+                ok++;
+                latencies.recordValue(latencyNanos);
+            } else {
+                errors++;
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private final String scenario;
+        private final int seconds;
+        private final Map<String, OperationStats> operations = new TreeMap<>();
+
+        private Result(String scenario, int seconds) {
+            this.scenario = scenario;
+            this.seconds = seconds;
+        }
+
+        private void add(String operation, OperationStats stats) {
+            OperationStats total = operations.computeIfAbsent(operation, key -> new OperationStats());
+            total.ok += stats.ok;
+            total.errors += stats.errors;
+            total.latencies.add(stats.latencies);
+        }
+
+        private static double percentileMillis(OperationStats stats, double percentile) {
+            return stats.latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode json = new ObjectMapper().createObjectNode();
+            operations.forEach((operation, stats) -> json.putObject(operation)
+                    .put("ok", stats.ok)
+                    .put("errors", stats.errors)
+                    .put("throughput", (double) stats.ok / seconds)
+                    .put("p50Millis", percentileMillis(stats, 50))
+                    .put("p99Millis", percentileMillis(stats, 99))
+                    .put("p999Millis", percentileMillis(stats, 99.9)));
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder lines = new StringBuilder();
+            operations.forEach((operation, stats) -> lines.append(String.format("%-14s %-14s ok=%d errors=%d throughput=%.0f req/s p50=%.2fms p99=%.2fms p99.9=%.2fms%n",
+                    scenario, operation, stats.ok, stats.errors, (double) stats.ok / seconds,
+                    percentileMillis(stats, 50), percentileMillis(stats, 99), percentileMillis(stats, 99.9))));
+            return lines.toString().trim();
+        }
+    }
+}
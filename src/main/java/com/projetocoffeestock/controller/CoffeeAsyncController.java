@@ -0,0 +1,67 @@
+package com.projetocoffeestock.controller;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.service.CoffeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/v1/async/coffees")
+@ConditionalOnProperty(name = "coffee.async.enabled", havingValue = "true")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeAsyncController implements CoffeeAsyncControllerDocs {
+
+    private final CoffeeService coffeeService;
+    private final CoffeeRequestExecutor coffeeRequestExecutor;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<CoffeeDTO> createCoffee(@RequestBody @Valid CoffeeDTO coffeeDTO) {
+        return coffeeRequestExecutor.submit(() -> coffeeService.createCoffee(coffeeDTO));
+    }
+
+    @GetMapping("/{name}")
+    public CompletableFuture<CoffeeDTO> findByName(@PathVariable String name) {
+        return coffeeRequestExecutor.submit(() -> coffeeService.findByName(name));
+    }
+
+    @GetMapping
+    public CompletableFuture<List<CoffeeDTO>> listCoffees() {
+        return coffeeRequestExecutor.submit(coffeeService::listAll);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public CompletableFuture<Void> deleteById(@PathVariable Long id) {
+        return coffeeRequestExecutor.submit(() -> {
+            coffeeService.deleteById(id);
+            return null;
+        });
+    }
+
+    @PatchMapping("/{id}/increment")
+    public CompletableFuture<CoffeeDTO> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return coffeeRequestExecutor.submit(() -> coffeeService.increment(id, quantityDTO.getQuantity()));
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public CompletableFuture<CoffeeDTO> decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) {
+        return coffeeRequestExecutor.submit(() -> coffeeService.decrement(id, quantityDTO.getQuantity()));
+    }
+}
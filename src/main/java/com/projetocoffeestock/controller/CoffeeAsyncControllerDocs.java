@@ -0,0 +1,67 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.QuantityDTO;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Api("Manages coffee stock off the servlet threads")
+public interface CoffeeAsyncControllerDocs {
+
+    @ApiOperation(value = "Coffee creation operation")
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "Success coffee creation"),
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<CoffeeDTO> createCoffee(CoffeeDTO coffeeDTO);
+
+    @ApiOperation(value = "Returns coffee found by a given name")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success coffee found in the system"),
+            @ApiResponse(code = 404, message = "Coffee with given name not found."),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<CoffeeDTO> findByName(@PathVariable String name);
+
+    @ApiOperation(value = "Returns a list of all coffees registered in the system")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "List of all coffees registered in the system"),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<List<CoffeeDTO>> listCoffees();
+
+    @ApiOperation(value = "Delete a coffee found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Success coffee deleted in the system"),
+            @ApiResponse(code = 404, message = "Coffee with given id not found."),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<Void> deleteById(@PathVariable Long id);
+
+    @ApiOperation(value = "Increment the stock of a coffee found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success coffee stock incremented"),
+            @ApiResponse(code = 400, message = "Increment exceeds the max stock of the coffee."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found."),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<CoffeeDTO> increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO);
+
+    @ApiOperation(value = "Decrement the stock of a coffee found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success coffee stock decremented"),
+            @ApiResponse(code = 400, message = "Not enough coffee in stock to decrement."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found."),
+            @ApiResponse(code = 503, message = "Too many requests in progress.")
+    })
+    CompletableFuture<CoffeeDTO> decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO);
+}
@@ -1,50 +1,214 @@
 package com.projetocoffeestock.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeImportResultDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementResultDTO;
+import com.projetocoffeestock.dto.CoffeePageDTO;
+import com.projetocoffeestock.dto.CoffeeSearchDTO;
+import com.projetocoffeestock.dto.CoffeeSearchPageDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryPageDTO;
 import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.dto.StockMovementPageDTO;
 import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.exception.CoffeeIdempotencyKeyReusedException;
+import com.projetocoffeestock.exception.CoffeeImportFormatException;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
 import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeSearchCursorException;
 import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import com.projetocoffeestock.service.CoffeeCatalogVersion;
+import com.projetocoffeestock.service.CoffeeIdempotencyStore;
+import com.projetocoffeestock.service.CoffeeImportService;
 import com.projetocoffeestock.service.CoffeeService;
+import com.projetocoffeestock.service.StockMovementService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/v1/coffees")
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class CoffeeController implements CoffeeControllerDocs {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final Pattern ENTITY_TAG = Pattern.compile("\\s*(\\*|(W/)?\"([^\"]*)\")\\s*(?:,|$)");
+
     private final CoffeeService coffeeService;
+    private final ObjectMapper objectMapper;
+    private final CoffeeImportService coffeeImportService;
+    private final StockMovementService stockMovementService;
+    private final CoffeeCatalogVersion coffeeCatalogVersion;
+    private final CoffeeIdempotencyStore coffeeIdempotencyStore;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public CoffeeDTO createCoffee(@RequestBody @Valid CoffeeDTO coffeeDTO) throws CoffeeAlreadyRegisteredException {
-        return coffeeService.createCoffee(coffeeDTO);
+    public CoffeeDTO createCoffee(@RequestBody @Valid CoffeeDTO coffeeDTO,
+                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws CoffeeAlreadyRegisteredException, CoffeeIdempotencyKeyReusedException {
+        try (CoffeeIdempotencyStore.Call call = coffeeIdempotencyStore.claim(idempotencyKey, Arrays.asList("create", coffeeDTO))) {
+            CoffeeDTO createdCoffeeDTO = call.replayed();
+            if (createdCoffeeDTO == null) {
+                createdCoffeeDTO = coffeeService.createCoffee(coffeeDTO);
+                call.complete(createdCoffeeDTO);
+            }
+            return createdCoffeeDTO;
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public CoffeeImportResultDTO importCsv(HttpServletRequest request) throws IOException, CoffeeImportFormatException {
+        try (Reader reader = uploadReader(request)) {
+            return coffeeImportService.importCsv(reader);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE)
+    public CoffeeImportResultDTO importNdjson(HttpServletRequest request) throws IOException {
+        try (Reader reader = uploadReader(request)) {
+            return coffeeImportService.importNdjson(reader);
+        }
+    }
+
+    private String catalogETag() {
+        return "\"" + coffeeCatalogVersion.current() + "\"";
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, CoffeeDTO coffeeDTO) {
+        return coffeeDTO.getVersion() == null ? response : response.eTag(coffeeDTO.getId() + "." + coffeeDTO.getVersion());
+    }
+
+    /**
+     * Versions of the coffee named by the entity tags of an If-Match header, in
+     * ascending order, or null when the header is {@code *}. Tags are compared
+     * strongly, as RFC 7232 requires for If-Match, so weak tags never match.
+     */
+    private static List<Long> expectedVersions(Long id, String ifMatch) {
+        String prefix = id + ".";
+        Set<Long> versions = new TreeSet<>();
+        Matcher matcher = ENTITY_TAG.matcher(ifMatch);
+        while (matcher.find()) {
+            if (matcher.group(1).equals("*")) {
+                return null;
+            }
+            String tag = matcher.group(3);
+            if (matcher.group(2) == null && tag.startsWith(prefix)) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // not a tag of this coffee, so it cannot match
+                }
+            }
+        }
+        return new ArrayList<>(versions);
+    }
+
+    private CoffeeDTO incrementIfMatch(Long id, int quantityToIncrement, String ifMatch) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeVersionMismatchException {
+        List<Long> expectedVersions = ifMatch == null ? null : expectedVersions(id, ifMatch);
+        if (expectedVersions == null) {
+            return coffeeService.increment(id, quantityToIncrement);
+        }
+        CoffeeVersionMismatchException mismatch = new CoffeeVersionMismatchException(id);
+        for (long expectedVersion : expectedVersions) {
+            try {
+                return coffeeService.increment(id, quantityToIncrement, expectedVersion);
+            } catch (CoffeeVersionMismatchException e) {
+                mismatch = e;
+            }
+        }
+        throw mismatch;
+    }
+
+    private static Reader uploadReader(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        return new InputStreamReader(request.getInputStream(), charset);
     }
 
     @GetMapping("/{name}")
-    public CoffeeDTO findByName(@PathVariable String name) throws CoffeeNotFoundException {
-        return coffeeService.findByName(name);
+    public ResponseEntity<CoffeeDTO> findByName(@PathVariable String name) throws CoffeeNotFoundException {
+        CoffeeDTO coffeeDTO = coffeeService.findByName(name);
+        return withETag(ResponseEntity.ok(), coffeeDTO).body(coffeeDTO);
     }
 
     @GetMapping
-    public List<CoffeeDTO> listCoffees() {
+    public List<CoffeeDTO> listCoffees(WebRequest request) {
+        if (request.checkNotModified(catalogETag())) {
+            return null;
+        }
         return coffeeService.listAll();
     }
 
+    @GetMapping(params = {"view=summary", "!size"})
+    public List<CoffeeSummaryDTO> listCoffeeSummaries(WebRequest request) {
+        if (request.checkNotModified(catalogETag())) {
+            return null;
+        }
+        return coffeeService.listSummaries();
+    }
+
+    @GetMapping(params = {"view=summary", "size"})
+    public CoffeeSummaryPageDTO listCoffeeSummariesPage(@RequestParam(required = false) Long afterId, @RequestParam int size) {
+        return coffeeService.listSummaryPage(afterId, size);
+    }
+
+    @GetMapping(params = "size")
+    public CoffeePageDTO listCoffeesPage(@RequestParam(required = false) Long afterId, @RequestParam int size) {
+        return coffeeService.listPage(afterId, size);
+    }
+
+    @GetMapping("/search")
+    public CoffeeSearchPageDTO search(@Valid CoffeeSearchDTO search) throws CoffeeSearchCursorException {
+        return coffeeService.search(search);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamCoffees() {
+        return outputStream -> coffeeService.streamAll(coffeeDTO -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(coffeeDTO));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteById(@PathVariable Long id) throws CoffeeNotFoundException {
@@ -52,7 +216,34 @@ public class CoffeeController implements CoffeeControllerDocs {
     }
 
     @PatchMapping("/{id}/increment")
-    public CoffeeDTO increment(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeStockExceededException {
-        return coffeeService.increment(id, quantityDTO.getQuantity());
+    public ResponseEntity<CoffeeDTO> increment(@PathVariable Long id,
+                                               @RequestBody @Valid QuantityDTO quantityDTO,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeVersionMismatchException, CoffeeIdempotencyKeyReusedException {
+        try (CoffeeIdempotencyStore.Call call = coffeeIdempotencyStore.claim(idempotencyKey, Arrays.asList("increment", id, quantityDTO.getQuantity(), ifMatch))) {
+            CoffeeDTO incrementedCoffeeDTO = call.replayed();
+            if (incrementedCoffeeDTO == null) {
+                incrementedCoffeeDTO = incrementIfMatch(id, quantityDTO.getQuantity(), ifMatch);
+                call.complete(incrementedCoffeeDTO);
+            }
+            return withETag(ResponseEntity.ok(), incrementedCoffeeDTO).body(incrementedCoffeeDTO);
+        }
+    }
+
+    @PatchMapping("/{id}/decrement")
+    public CoffeeDTO decrement(@PathVariable Long id, @RequestBody @Valid QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        return coffeeService.decrement(id, quantityDTO.getQuantity());
+    }
+
+    @GetMapping("/{id}/movements")
+    public StockMovementPageDTO listMovements(@PathVariable Long id,
+                                              @RequestParam(required = false) Long afterId,
+                                              @RequestParam(defaultValue = "100") int size) {
+        return stockMovementService.history(id, afterId, size);
+    }
+
+    @PatchMapping("/increments")
+    public List<CoffeeIncrementResultDTO> incrementAll(@RequestBody List<CoffeeIncrementDTO> increments) {
+        return coffeeService.incrementAll(increments);
     }
 }
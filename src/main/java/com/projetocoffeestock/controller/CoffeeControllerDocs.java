@@ -5,38 +5,107 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeImportResultDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementResultDTO;
+import com.projetocoffeestock.dto.CoffeePageDTO;
+import com.projetocoffeestock.dto.CoffeeSearchDTO;
+import com.projetocoffeestock.dto.CoffeeSearchPageDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryPageDTO;
 import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.dto.StockMovementPageDTO;
 import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.exception.CoffeeIdempotencyKeyReusedException;
+import com.projetocoffeestock.exception.CoffeeImportFormatException;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
 import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeSearchCursorException;
 import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @Api("Manages coffee stock")
 public interface CoffeeControllerDocs {
 
-    @ApiOperation(value = "Coffee creation operation")
+    @ApiOperation(value = "Coffee creation operation, replayed instead of run again when retried with the same Idempotency-Key")
     @ApiResponses(value = {
             @ApiResponse(code = 201, message = "Success coffee creation"),
-            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value.")
+            @ApiResponse(code = 400, message = "Missing required fields or wrong field range value."),
+            @ApiResponse(code = 422, message = "Idempotency-Key already used for a different request.")
     })
-    CoffeeDTO createCoffee(CoffeeDTO coffeeDTO) throws CoffeeAlreadyRegisteredException;
+    CoffeeDTO createCoffee(CoffeeDTO coffeeDTO, String idempotencyKey) throws CoffeeAlreadyRegisteredException, CoffeeIdempotencyKeyReusedException;
 
-    @ApiOperation(value = "Returns coffee found by a given name")
+    @ApiOperation(value = "Imports coffees from a CSV upload with a name,brand,max,quantity,type header")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of imported and rejected rows, with the reason for each rejection"),
+            @ApiResponse(code = 400, message = "Missing or incomplete CSV header.")
+    })
+    CoffeeImportResultDTO importCsv(HttpServletRequest request) throws IOException, CoffeeImportFormatException;
+
+    @ApiOperation(value = "Imports coffees from a newline delimited JSON upload")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Number of imported and rejected rows, with the reason for each rejection"),
+    })
+    CoffeeImportResultDTO importNdjson(HttpServletRequest request) throws IOException;
+
+    @ApiOperation(value = "Returns coffee found by a given name",
+            notes = "A coffee named search or stream cannot be found here: those paths are served by the search and stock stream endpoints.")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Success coffee found in the system"),
+            @ApiResponse(code = 304, message = "Coffee unchanged since the ETag given in If-None-Match."),
             @ApiResponse(code = 404, message = "Coffee with given name not found.")
     })
-    CoffeeDTO findByName(@PathVariable String name) throws CoffeeNotFoundException;
+    ResponseEntity<CoffeeDTO> findByName(@PathVariable String name) throws CoffeeNotFoundException;
 
     @ApiOperation(value = "Returns a list of all coffees registered in the system")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "List of all coffees registered in the system"),
+            @ApiResponse(code = 304, message = "Catalog unchanged since the ETag given in If-None-Match."),
+    })
+    List<CoffeeDTO> listCoffees(WebRequest request);
+
+    @ApiOperation(value = "Returns a page of coffees ordered by id, starting after the given id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of coffees and the id to continue from, if any"),
+    })
+    CoffeePageDTO listCoffeesPage(Long afterId, int size);
+
+    @ApiOperation(value = "Searches coffees by type, brand prefix, quantity range and fill percentage, a page at a time",
+            notes = "Quantity and fill filters and sorts use the stored quantities, which may trail the latest stock changes by up to coffee.stock.ledger.max-lag-ms; the coffees returned carry their latest quantity.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of matching coffees and the cursor to continue from, if any"),
+            @ApiResponse(code = 400, message = "Filter out of range or cursor not valid for the requested sort.")
+    })
+    CoffeeSearchPageDTO search(CoffeeSearchDTO search) throws CoffeeSearchCursorException;
+
+    @ApiOperation(value = "Returns only the id, name, type and quantity of every coffee, for browsing the catalog",
+            notes = "Not used when a size is given: the request is then served as a page of summaries.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Summary of all coffees registered in the system"),
+    })
+    List<CoffeeSummaryDTO> listCoffeeSummaries(WebRequest request);
+
+    @ApiOperation(value = "Returns a page of coffee summaries ordered by id, starting after the given id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of summaries and the id to continue from, if any"),
     })
-    List<CoffeeDTO> listCoffees();
+    CoffeeSummaryPageDTO listCoffeeSummariesPage(Long afterId, int size);
+
+    @ApiOperation(value = "Streams all coffees registered in the system as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One coffee per line"),
+    })
+    StreamingResponseBody streamCoffees();
 
     @ApiOperation(value = "Delete a coffee found by a given valid Id")
     @ApiResponses(value = {
@@ -44,5 +113,34 @@ public interface CoffeeControllerDocs {
             @ApiResponse(code = 404, message = "Coffee with given id not found.")
     })
     void deleteById(@PathVariable Long id) throws CoffeeNotFoundException;
-}
 
+    @ApiOperation(value = "Increments the stock of a coffee found by a given valid Id, optionally only if its ETag still matches. A retry with the same Idempotency-Key gets the first result back without incrementing again")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success coffee stock incremented"),
+            @ApiResponse(code = 400, message = "Stock would exceed the max capacity of the coffee."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found."),
+            @ApiResponse(code = 412, message = "Coffee is not at any of the versions given in If-Match; weak tags never match."),
+            @ApiResponse(code = 422, message = "Idempotency-Key already used for a different request.")
+    })
+    ResponseEntity<CoffeeDTO> increment(@PathVariable Long id, QuantityDTO quantityDTO, String ifMatch, String idempotencyKey) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeVersionMismatchException, CoffeeIdempotencyKeyReusedException;
+
+    @ApiOperation(value = "Decrements the stock of a coffee found by a given valid Id")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success coffee stock decremented"),
+            @ApiResponse(code = 400, message = "Not enough coffee in stock to decrement."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeDTO decrement(@PathVariable Long id, QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeInsufficientStockException;
+
+    @ApiOperation(value = "Replays the stock movements of a coffee, oldest first, with the quantity after each one")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of movements and the id to continue after, if any")
+    })
+    StockMovementPageDTO listMovements(@PathVariable Long id, Long afterId, int size);
+
+    @ApiOperation(value = "Increments the stock of several coffees in a single batch")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Result of each increment, successful or not")
+    })
+    List<CoffeeIncrementResultDTO> incrementAll(List<CoffeeIncrementDTO> increments);
+}
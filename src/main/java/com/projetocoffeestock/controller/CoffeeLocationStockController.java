@@ -0,0 +1,43 @@
+package com.projetocoffeestock.controller;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.CoffeeLocationStockDTO;
+import com.projetocoffeestock.dto.CoffeeLocationsStockDTO;
+import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeLocationInvalidException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.service.CoffeeLocationStockService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/coffees/{id}/locations")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeLocationStockController implements CoffeeLocationStockControllerDocs {
+
+    private final CoffeeLocationStockService coffeeLocationStockService;
+
+    @GetMapping
+    public CoffeeLocationsStockDTO stockOf(@PathVariable Long id) throws CoffeeNotFoundException {
+        return coffeeLocationStockService.stockOf(id);
+    }
+
+    @PatchMapping("/{location}/increment")
+    public CoffeeLocationStockDTO increment(@PathVariable Long id, @PathVariable String location, @RequestBody @Valid QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException {
+        return coffeeLocationStockService.increment(id, location, quantityDTO.getQuantity());
+    }
+
+    @PatchMapping("/{location}/decrement")
+    public CoffeeLocationStockDTO decrement(@PathVariable Long id, @PathVariable String location, @RequestBody @Valid QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeInsufficientStockException, CoffeeLocationInvalidException {
+        return coffeeLocationStockService.decrement(id, location, quantityDTO.getQuantity());
+    }
+}
@@ -0,0 +1,40 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import com.projetocoffeestock.dto.CoffeeLocationStockDTO;
+import com.projetocoffeestock.dto.CoffeeLocationsStockDTO;
+import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeLocationInvalidException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+
+@Api("Manages coffee stock per location")
+public interface CoffeeLocationStockControllerDocs {
+
+    @ApiOperation(value = "Returns a coffee's stock at each location and the total across them")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock per location, the default location first"),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeLocationsStockDTO stockOf(Long id) throws CoffeeNotFoundException;
+
+    @ApiOperation(value = "Increments the stock of a coffee at one location, creating the location on its first increment")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock of the coffee at the location after the increment"),
+            @ApiResponse(code = 400, message = "Invalid location name, or the increment exceeds the location's max stock."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeLocationStockDTO increment(Long id, String location, QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException;
+
+    @ApiOperation(value = "Decrements the stock of a coffee at one location")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock of the coffee at the location after the decrement"),
+            @ApiResponse(code = 400, message = "Invalid location name, or not enough stock at the location."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeLocationStockDTO decrement(Long id, String location, QuantityDTO quantityDTO) throws CoffeeNotFoundException, CoffeeInsufficientStockException, CoffeeLocationInvalidException;
+}
@@ -0,0 +1,69 @@
+package com.projetocoffeestock.controller;
+
+import com.projetocoffeestock.exception.CoffeeRequestRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool that runs service calls for {@link CoffeeAsyncController}. Once every
+ * worker is busy and the queue is full, new requests fail fast with
+ * {@link CoffeeRequestRejectedException} instead of piling up.
+ */
+@Component
+@ConditionalOnProperty(name = "coffee.async.enabled", havingValue = "true")
+public class CoffeeRequestExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public CoffeeRequestExecutor(MeterRegistry meterRegistry,
+                                 @Value("${coffee.async.pool-size:64}") int poolSize,
+                                 @Value("${coffee.async.queue-capacity:1000}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "coffee-async-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "coffee.async", Collections.emptyList());
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new CoffeeRequestRejectedException());
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
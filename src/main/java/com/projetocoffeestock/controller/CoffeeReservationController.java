@@ -0,0 +1,55 @@
+package com.projetocoffeestock.controller;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.CoffeeAvailabilityDTO;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeReservationDTO;
+import com.projetocoffeestock.dto.CoffeeReservationRequestDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeReservationNotFoundException;
+import com.projetocoffeestock.service.CoffeeReservationService;
+import com.projetocoffeestock.service.CoffeeStockHolds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/v1/reservations")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeReservationController implements CoffeeReservationControllerDocs {
+
+    private final CoffeeReservationService coffeeReservationService;
+    private final CoffeeStockHolds coffeeStockHolds;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CoffeeReservationDTO reserve(@RequestBody @Valid CoffeeReservationRequestDTO request) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        return coffeeReservationService.reserve(request);
+    }
+
+    @PostMapping("/{id}/confirm")
+    public CoffeeDTO confirm(@PathVariable String id) throws CoffeeReservationNotFoundException, CoffeeNotFoundException, CoffeeInsufficientStockException {
+        return coffeeReservationService.confirm(id);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void release(@PathVariable String id) throws CoffeeReservationNotFoundException {
+        coffeeReservationService.release(id);
+    }
+
+    @GetMapping("/availability/{coffeeId}")
+    public CoffeeAvailabilityDTO availability(@PathVariable Long coffeeId) throws CoffeeNotFoundException {
+        return coffeeStockHolds.availabilityOf(coffeeId);
+    }
+}
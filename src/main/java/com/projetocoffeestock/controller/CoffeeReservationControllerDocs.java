@@ -0,0 +1,46 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import com.projetocoffeestock.dto.CoffeeAvailabilityDTO;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeReservationDTO;
+import com.projetocoffeestock.dto.CoffeeReservationRequestDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeReservationNotFoundException;
+
+@Api("Holds coffee stock for checkouts")
+public interface CoffeeReservationControllerDocs {
+
+    @ApiOperation(value = "Holds units of a coffee until the reservation is confirmed, released or its TTL runs out")
+    @ApiResponses(value = {
+            @ApiResponse(code = 201, message = "Units held, with the reservation id and its expiry"),
+            @ApiResponse(code = 400, message = "Quantity exceeds the stock not already held."),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeReservationDTO reserve(CoffeeReservationRequestDTO request) throws CoffeeNotFoundException, CoffeeInsufficientStockException;
+
+    @ApiOperation(value = "Takes the held units out of the coffee stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Coffee stock after the reserved units were taken out"),
+            @ApiResponse(code = 404, message = "Reservation already confirmed, released or expired, or its coffee was deleted.")
+    })
+    CoffeeDTO confirm(String id) throws CoffeeReservationNotFoundException, CoffeeNotFoundException, CoffeeInsufficientStockException;
+
+    @ApiOperation(value = "Gives the held units back without changing the coffee stock")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Reservation released"),
+            @ApiResponse(code = 404, message = "Reservation already confirmed, released or expired.")
+    })
+    void release(String id) throws CoffeeReservationNotFoundException;
+
+    @ApiOperation(value = "Returns a coffee's stock, the units held by reservations and what is left to reserve")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stock available for new reservations"),
+            @ApiResponse(code = 404, message = "Coffee with given id not found.")
+    })
+    CoffeeAvailabilityDTO availability(Long coffeeId) throws CoffeeNotFoundException;
+}
@@ -0,0 +1,228 @@
+package com.projetocoffeestock.controller;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeStockUpdateDTO;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.service.CoffeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans stock changes out to every subscriber. Subscribers only hold the ids of
+ * the coffees that changed since their last send, and each send reads the latest
+ * state of those coffees, so a slow consumer gets fewer, newer updates instead of
+ * a growing backlog. A deletion is handed to each subscriber directly rather than
+ * kept as the coffee's latest state, so nothing is left behind once it is sent.
+ *
+ * <p>A send that blocks, because the client stopped reading, holds one of the few
+ * sender threads. Subscribers whose send has not returned within the send timeout
+ * are completed and dropped, so they cannot stall the stream for everyone else.
+ */
+@RestController
+@RequestMapping("/api/v1/coffees")
+public class CoffeeStockStreamController implements CoffeeStockStreamControllerDocs {
+
+    private final CoffeeService coffeeService;
+    private final long emitterTimeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Executor sender;
+    private final ConcurrentMap<Long, CoffeeStockUpdateDTO> latestById = new ConcurrentHashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public CoffeeStockStreamController(CoffeeService coffeeService,
+                                       @Value("${coffee.stream.sse-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                       @Value("${coffee.stream.send-timeout-ms:5000}") long sendTimeoutMillis,
+                                       @Value("${coffee.stream.sender-threads:4}") int senderThreads) {
+        this(coffeeService, emitterTimeoutMillis, sendTimeoutMillis, Executors.newFixedThreadPool(senderThreads, new SenderThreadFactory()));
+    }
+
+    CoffeeStockStreamController(CoffeeService coffeeService, long emitterTimeoutMillis, long sendTimeoutMillis, Executor sender) {
+        this.coffeeService = coffeeService;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.sender = sender;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        return register(new SseEmitter(emitterTimeoutMillis));
+    }
+
+    SseEmitter register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscriber.scheduled.set(true);
+        subscribers.add(subscriber);
+        sender.execute(() -> {
+            if (subscriber.send(SseEmitter.event()
+                    .name("snapshot")
+                    .data(coffeeService.listSummaries(), MediaType.APPLICATION_JSON))) {
+                subscriber.drain();
+            }
+        });
+        return emitter;
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        CoffeeDTO coffeeDTO = event.getCoffee();
+        CoffeeStockUpdateDTO update = CoffeeStockUpdateDTO.builder()
+                .id(coffeeDTO.getId())
+                .name(coffeeDTO.getName())
+                .type(coffeeDTO.getType())
+                .quantity(coffeeDTO.getQuantity())
+                .version(coffeeDTO.getVersion())
+                .build();
+        latestById.merge(update.getId(), update, CoffeeStockStreamController::newer);
+        publish(update.getId());
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        CoffeeDTO coffeeDTO = event.getCoffee();
+        CoffeeStockUpdateDTO deletion = CoffeeStockUpdateDTO.builder()
+                .id(coffeeDTO.getId())
+                .name(coffeeDTO.getName())
+                .type(coffeeDTO.getType())
+                .deleted(true)
+                .build();
+        latestById.remove(coffeeDTO.getId());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.deletions.put(coffeeDTO.getId(), deletion);
+        }
+        publish(coffeeDTO.getId());
+    }
+
+    private void publish(Long id) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.changedIds.add(id);
+            subscriber.schedule();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coffee.stream.send-check-interval-ms:1000}")
+    public void dropBlockedSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSinceNanos;
+            if (sendingSince != 0 && now - sendingSince > sendTimeoutNanos) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    int trackedCoffees() {
+        return latestById.size();
+    }
+
+    private static CoffeeStockUpdateDTO newer(CoffeeStockUpdateDTO current, CoffeeStockUpdateDTO update) {
+        if (current.getVersion() == null || update.getVersion() == null) {
+            return update;
+        }
+        return update.getVersion() >= current.getVersion() ? update : current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+        private final ConcurrentMap<Long, CoffeeStockUpdateDTO> deletions = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long sendingSinceNanos;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                for (Long id : changedIds) {
+                    changedIds.remove(id);
+                    CoffeeStockUpdateDTO update = deletions.remove(id);
+                    if (update == null) {
+                        update = latestById.get(id);
+                    }
+                    if (update != null && !send(update)) {
+                        return;
+                    }
+                }
+                scheduled.set(false);
+            } while (!changedIds.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+
+        private boolean send(CoffeeStockUpdateDTO update) {
+            return send(SseEmitter.event()
+                    .name(update.isDeleted() ? "deleted" : "update")
+                    .data(update, MediaType.APPLICATION_JSON));
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            if (!subscribers.contains(this)) {
+                return false;
+            }
+            sendingSinceNanos = System.nanoTime();
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                return false;
+            } finally {
+                sendingSinceNanos = 0;
+            }
+        }
+    }
+
+    private static final class SenderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "coffee-stock-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
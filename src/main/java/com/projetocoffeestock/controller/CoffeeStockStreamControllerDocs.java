@@ -0,0 +1,18 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Api("Live stock levels")
+public interface CoffeeStockStreamControllerDocs {
+
+    @ApiOperation(value = "Streams a snapshot of every coffee's stock, then each stock change, as server-sent events",
+            notes = "Takes precedence over finding a coffee by name, so a coffee named stream cannot be looked up by its name.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One snapshot event, then one update event per changed coffee"),
+    })
+    SseEmitter subscribe();
+}
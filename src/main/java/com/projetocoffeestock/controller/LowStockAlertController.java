@@ -0,0 +1,128 @@
+package com.projetocoffeestock.controller;
+
+import com.projetocoffeestock.dto.LowStockAlertDTO;
+import com.projetocoffeestock.dto.LowStockThresholdDTO;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.event.LowStockAlertEvent;
+import com.projetocoffeestock.service.LowStockWatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RestController
+@RequestMapping("/api/v1/alerts/low-stock")
+public class LowStockAlertController implements LowStockAlertControllerDocs {
+
+    private final LowStockWatcher lowStockWatcher;
+    private final long emitterTimeoutMillis;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Long, LowStockAlertDTO> pendingAlerts = new ConcurrentHashMap<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final ExecutorService alertSender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-alert-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LowStockAlertController(LowStockWatcher lowStockWatcher,
+                                   @Value("${coffee.alerts.sse-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.lowStockWatcher = lowStockWatcher;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    @PutMapping("/thresholds/types/{type}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void setTypeThreshold(@PathVariable CoffeeType type, @RequestBody @Valid LowStockThresholdDTO thresholdDTO) {
+        lowStockWatcher.setTypeThreshold(type, thresholdDTO.getPercent());
+    }
+
+    @PutMapping("/thresholds/coffees/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void setCoffeeThreshold(@PathVariable Long id, @RequestBody @Valid LowStockThresholdDTO thresholdDTO) {
+        lowStockWatcher.setCoffeeThreshold(id, thresholdDTO.getPercent());
+    }
+
+    /**
+     * Queues the alert as the latest one of its coffee, replacing an older alert of
+     * the same coffee still waiting to be sent, so a coffee flapping around its
+     * threshold only sends where it ended up. At most one send task is ever queued
+     * on the sender thread.
+     */
+    @EventListener
+    public void onLowStockAlert(LowStockAlertEvent event) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        pendingAlerts.merge(event.getAlert().getId(), event.getAlert(), LowStockAlertController::latest);
+        if (sending.compareAndSet(false, true)) {
+            alertSender.execute(this::sendPending);
+        }
+    }
+
+    private void sendPending() {
+        do {
+            for (Long id : pendingAlerts.keySet()) {
+                LowStockAlertDTO alert = pendingAlerts.remove(id);
+                if (alert != null) {
+                    send(alert);
+                }
+            }
+            sending.set(false);
+        } while (!pendingAlerts.isEmpty() && sending.compareAndSet(false, true));
+    }
+
+    private static LowStockAlertDTO latest(LowStockAlertDTO queued, LowStockAlertDTO alert) {
+        boolean older = queued.getVersion() != null && alert.getVersion() != null && alert.getVersion() < queued.getVersion();
+        return older ? queued : alert;
+    }
+
+    private void send(LowStockAlertDTO alert) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(alert.isLow() ? "low-stock" : "restocked")
+                        .data(alert, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        alertSender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+}
@@ -0,0 +1,37 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import com.projetocoffeestock.dto.LowStockThresholdDTO;
+import com.projetocoffeestock.enums.CoffeeType;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.validation.Valid;
+
+@Api("Low stock alerts")
+public interface LowStockAlertControllerDocs {
+
+    @ApiOperation(value = "Streams low-stock and restocked events as server-sent events")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "One event each time a coffee crosses its low-stock threshold"),
+    })
+    SseEmitter subscribe();
+
+    @ApiOperation(value = "Sets the low-stock threshold, as a percentage of max, for every coffee of a type")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Threshold updated"),
+            @ApiResponse(code = 400, message = "Percentage missing or out of the 0-100 range.")
+    })
+    void setTypeThreshold(@PathVariable CoffeeType type, @RequestBody @Valid LowStockThresholdDTO thresholdDTO);
+
+    @ApiOperation(value = "Sets the low-stock threshold, as a percentage of max, for a single coffee")
+    @ApiResponses(value = {
+            @ApiResponse(code = 204, message = "Threshold updated"),
+            @ApiResponse(code = 400, message = "Percentage missing or out of the 0-100 range.")
+    })
+    void setCoffeeThreshold(@PathVariable Long id, @RequestBody @Valid LowStockThresholdDTO thresholdDTO);
+}
@@ -0,0 +1,22 @@
+package com.projetocoffeestock.controller;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.StockAnalyticsDTO;
+import com.projetocoffeestock.service.StockAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockAnalyticsController implements StockAnalyticsControllerDocs {
+
+    private final StockAnalytics stockAnalytics;
+
+    @GetMapping("/stock")
+    public StockAnalyticsDTO stockAnalytics() {
+        return stockAnalytics.snapshot();
+    }
+}
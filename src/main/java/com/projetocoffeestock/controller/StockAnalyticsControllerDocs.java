@@ -0,0 +1,17 @@
+package com.projetocoffeestock.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import com.projetocoffeestock.dto.StockAnalyticsDTO;
+
+@Api("Stock analytics")
+public interface StockAnalyticsControllerDocs {
+
+    @ApiOperation(value = "Returns stock totals, utilization and low or full item counts, overall, by type and by brand")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Current stock analytics"),
+    })
+    StockAnalyticsDTO stockAnalytics();
+}
@@ -0,0 +1,21 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeAvailabilityDTO {
+
+    private Long coffeeId;
+
+    private int quantity;
+
+    private int held;
+
+    private int available;
+}
@@ -1,5 +1,6 @@
 package com.projetocoffeestock.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,5 +40,8 @@ public class CoffeeDTO {
     @Enumerated(EnumType.STRING)
     @NotNull
     private CoffeeType type;
+
+    @JsonIgnore
+    private Long version;
 }
 
@@ -0,0 +1,17 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeImportErrorDTO {
+
+    private long line;
+
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeImportResultDTO {
+
+    private long imported;
+
+    private long rejected;
+
+    private List<CoffeeImportErrorDTO> errors;
+
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,23 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeIncrementDTO {
+
+    @NotNull
+    private Long id;
+
+    @NotNull
+    @Max(100)
+    private Integer quantity;
+}
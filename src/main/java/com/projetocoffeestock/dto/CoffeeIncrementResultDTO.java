@@ -0,0 +1,23 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeIncrementResultDTO {
+
+    private Long id;
+
+    private Integer quantityToIncrement;
+
+    private boolean success;
+
+    private Integer quantity;
+
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeLocationStockDTO {
+
+    private Long coffeeId;
+
+    private String location;
+
+    private int quantity;
+
+    private int max;
+}
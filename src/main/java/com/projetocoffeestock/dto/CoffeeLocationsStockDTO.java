@@ -0,0 +1,21 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeLocationsStockDTO {
+
+    private Long coffeeId;
+
+    private long total;
+
+    private List<CoffeeLocationStockDTO> locations;
+}
@@ -0,0 +1,23 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeReservationDTO {
+
+    private String id;
+
+    private Long coffeeId;
+
+    private int quantity;
+
+    private Instant expiresAt;
+}
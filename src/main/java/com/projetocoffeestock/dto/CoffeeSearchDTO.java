@@ -0,0 +1,51 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.projetocoffeestock.enums.CoffeeSortField;
+import com.projetocoffeestock.enums.CoffeeType;
+import org.springframework.data.domain.Sort;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeSearchDTO {
+
+    private CoffeeType type;
+
+    @Size(min = 1, max = 200)
+    private String brand;
+
+    @Min(0)
+    private Integer minQuantity;
+
+    @Min(0)
+    private Integer maxQuantity;
+
+    @Min(0)
+    @Max(100)
+    private Integer minFillPercent;
+
+    @Min(0)
+    @Max(100)
+    private Integer maxFillPercent;
+
+    @Builder.Default
+    private CoffeeSortField sort = CoffeeSortField.ID;
+
+    @Builder.Default
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    private String after;
+
+    @Builder.Default
+    @Min(1)
+    private int size = 50;
+}
@@ -0,0 +1,26 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.projetocoffeestock.enums.CoffeeType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeStockUpdateDTO {
+
+    private Long id;
+
+    private String name;
+
+    private CoffeeType type;
+
+    private int quantity;
+
+    private Long version;
+
+    private boolean deleted;
+}
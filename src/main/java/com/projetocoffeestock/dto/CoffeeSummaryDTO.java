@@ -0,0 +1,22 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.projetocoffeestock.enums.CoffeeType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeSummaryDTO {
+
+    private Long id;
+
+    private String name;
+
+    private CoffeeType type;
+
+    private int quantity;
+}
@@ -0,0 +1,19 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoffeeSummaryPageDTO {
+
+    private List<CoffeeSummaryDTO> content;
+
+    private Long nextAfterId;
+}
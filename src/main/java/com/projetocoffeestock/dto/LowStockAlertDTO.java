@@ -0,0 +1,30 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.projetocoffeestock.enums.CoffeeType;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlertDTO {
+
+    private Long id;
+
+    private String name;
+
+    private CoffeeType type;
+
+    private int max;
+
+    private int quantity;
+
+    private int thresholdPercent;
+
+    private boolean low;
+
+    private Long version;
+}
@@ -0,0 +1,21 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAnalyticsDTO {
+
+    private StockGroupDTO total;
+
+    private List<StockGroupDTO> byType;
+
+    private List<StockGroupDTO> byBrand;
+}
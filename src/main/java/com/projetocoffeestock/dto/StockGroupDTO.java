@@ -0,0 +1,27 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockGroupDTO {
+
+    private String group;
+
+    private long coffees;
+
+    private long quantity;
+
+    private long max;
+
+    private double utilization;
+
+    private long lowItems;
+
+    private long fullItems;
+}
@@ -0,0 +1,26 @@
+package com.projetocoffeestock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import com.projetocoffeestock.enums.StockMovementReason;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDTO {
+
+    private Long id;
+
+    private int delta;
+
+    private StockMovementReason reason;
+
+    private Instant createdAt;
+
+    private long quantityAfter;
+}
@@ -12,15 +12,28 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_coffee_type_quantity", columnList = "type, quantity"),
+        @Index(name = "idx_coffee_brand", columnList = "brand, id"),
+        @Index(name = "idx_coffee_quantity", columnList = "quantity, id")
+})
 public class Coffee {
 
+    public static final String ID_SEQUENCE = "coffee_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -39,6 +52,7 @@ public class Coffee {
     @Column(nullable = false)
     private CoffeeType type;
 
-
+    @Version
+    private Long version;
 }
 
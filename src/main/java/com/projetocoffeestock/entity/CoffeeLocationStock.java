@@ -0,0 +1,39 @@
+package com.projetocoffeestock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_coffee_location_stock", columnNames = {"coffee_id", "location"}))
+public class CoffeeLocationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coffee_location_stock_seq")
+    @SequenceGenerator(name = "coffee_location_stock_seq", sequenceName = "coffee_location_stock_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "coffee_id", nullable = false, updatable = false)
+    private Long coffeeId;
+
+    @Column(nullable = false, updatable = false, length = 64)
+    private String location;
+
+    @Column(nullable = false)
+    private int max;
+
+    @Column(nullable = false)
+    private int quantity;
+}
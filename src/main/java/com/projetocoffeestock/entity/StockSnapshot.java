@@ -0,0 +1,40 @@
+package com.projetocoffeestock.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_stock_snapshot_coffee", columnList = "coffee_id, last_movement_id"))
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshot_seq")
+    @SequenceGenerator(name = "stock_snapshot_seq", sequenceName = "stock_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "coffee_id", nullable = false, updatable = false)
+    private Long coffeeId;
+
+    @Column(name = "last_movement_id", nullable = false, updatable = false)
+    private long lastMovementId;
+
+    @Column(nullable = false, updatable = false)
+    private long quantity;
+
+    @Column(nullable = false, updatable = false)
+    private Instant takenAt;
+}
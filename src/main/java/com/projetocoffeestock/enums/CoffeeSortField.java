@@ -0,0 +1,16 @@
+package com.projetocoffeestock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum CoffeeSortField {
+
+    ID("id"),
+    NAME("name"),
+    BRAND("brand"),
+    QUANTITY("quantity");
+
+    private final String attribute;
+}
@@ -0,0 +1,16 @@
+package com.projetocoffeestock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StockMovementReason {
+
+    CREATED("Created"),
+    INCREMENT("Increment"),
+    DECREMENT("Decrement"),
+    DELETED("Deleted");
+
+    private final String description;
+}
@@ -0,0 +1,14 @@
+package com.projetocoffeestock.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import com.projetocoffeestock.dto.CoffeeDTO;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class CoffeeDeletedEvent {
+
+    private final CoffeeDTO coffee;
+}
@@ -0,0 +1,19 @@
+package com.projetocoffeestock.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.enums.StockMovementReason;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class CoffeeStockChangedEvent {
+
+    private final CoffeeDTO coffee;
+
+    private final int delta;
+
+    private final StockMovementReason reason;
+}
@@ -0,0 +1,14 @@
+package com.projetocoffeestock.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import com.projetocoffeestock.dto.LowStockAlertDTO;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class LowStockAlertEvent {
+
+    private final LowStockAlertDTO alert;
+}
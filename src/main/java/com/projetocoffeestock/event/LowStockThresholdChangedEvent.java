@@ -0,0 +1,16 @@
+package com.projetocoffeestock.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import com.projetocoffeestock.enums.CoffeeType;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class LowStockThresholdChangedEvent {
+
+    private final CoffeeType type;
+
+    private final Long coffeeId;
+}
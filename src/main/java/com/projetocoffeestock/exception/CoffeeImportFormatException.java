@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CoffeeImportFormatException extends Exception {
+
+    public CoffeeImportFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CoffeeInsufficientStockException extends Exception {
+
+    public CoffeeInsufficientStockException(Long id, int quantityToDecrement) {
+        super(String.format("Coffees with %s ID to decrement informed exceeds the available stock: %s", id, quantityToDecrement));
+    }
+}
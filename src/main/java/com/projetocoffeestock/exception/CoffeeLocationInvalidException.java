@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CoffeeLocationInvalidException extends Exception {
+
+    public CoffeeLocationInvalidException(String location) {
+        super(String.format("Location %s is not valid: use up to 64 letters, digits, '-' or '_'.", location));
+    }
+}
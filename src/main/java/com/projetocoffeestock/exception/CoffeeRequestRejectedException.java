@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CoffeeRequestRejectedException extends RuntimeException {
+
+    public CoffeeRequestRejectedException() {
+        super("Too many coffee requests in progress, try again later.");
+    }
+}
@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CoffeeReservationNotFoundException extends Exception {
+
+    public CoffeeReservationNotFoundException(String reservationId) {
+        super(String.format("Reservation %s not found, it was already confirmed, released or has expired.", reservationId));
+    }
+}
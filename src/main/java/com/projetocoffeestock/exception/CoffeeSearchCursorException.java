@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CoffeeSearchCursorException extends Exception {
+
+    public CoffeeSearchCursorException(String cursor) {
+        super(String.format("Search cursor %s is not valid for the requested sort.", cursor));
+    }
+}
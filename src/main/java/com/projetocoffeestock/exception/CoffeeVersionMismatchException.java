@@ -0,0 +1,12 @@
+package com.projetocoffeestock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class CoffeeVersionMismatchException extends Exception {
+
+    public CoffeeVersionMismatchException(Long id) {
+        super(String.format("Coffee with id %s was changed since the informed version", id));
+    }
+}
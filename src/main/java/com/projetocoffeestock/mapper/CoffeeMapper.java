@@ -3,6 +3,7 @@ package com.projetocoffeestock.mapper;
 import com.projetocoffeestock.dto.CoffeeDTO;
 import com.projetocoffeestock.entity.Coffee;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -10,6 +11,7 @@ public interface CoffeeMapper {
 
     CoffeeMapper INSTANCE = Mappers.getMapper(CoffeeMapper.class);
 
+    @Mapping(target = "version", ignore = true)
     Coffee toModel(CoffeeDTO coffeeDTO);
 
     CoffeeDTO toDTO(Coffee coffee);
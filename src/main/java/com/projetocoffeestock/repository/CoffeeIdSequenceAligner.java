@@ -0,0 +1,33 @@
+package com.projetocoffeestock.repository;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.entity.Coffee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coffee ids used to come from an identity column. On a database that already
+ * holds rows from that time the new sequence starts at 1, so before anything is
+ * inserted it is moved past the highest existing id plus one allocation block.
+ */
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeIdSequenceAligner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void alignWithExistingIds() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from coffee", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long nextValue = jdbcTemplate.queryForObject("select next value for " + Coffee.ID_SEQUENCE, Long.class);
+        if (nextValue - Coffee.ID_ALLOCATION_SIZE < maxId) {
+            jdbcTemplate.execute("alter sequence " + Coffee.ID_SEQUENCE + " restart with " + (maxId + Coffee.ID_ALLOCATION_SIZE + 1));
+        }
+    }
+}
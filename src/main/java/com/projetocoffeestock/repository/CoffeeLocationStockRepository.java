@@ -0,0 +1,33 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.entity.CoffeeLocationStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CoffeeLocationStockRepository extends JpaRepository<CoffeeLocationStock, Long> {
+
+    Optional<CoffeeLocationStock> findByCoffeeIdAndLocation(Long coffeeId, String location);
+
+    List<CoffeeLocationStock> findByCoffeeIdOrderByLocationAsc(Long coffeeId);
+
+    @Transactional
+    @Modifying
+    @Query("update CoffeeLocationStock s set s.quantity = s.quantity + :quantity where s.coffeeId = :coffeeId and s.location = :location and s.quantity + :quantity <= s.max and s.quantity + :quantity >= 0")
+    int incrementQuantity(@Param("coffeeId") Long coffeeId, @Param("location") String location, @Param("quantity") int quantityToIncrement);
+
+    @Transactional
+    @Modifying
+    @Query("update CoffeeLocationStock s set s.quantity = s.quantity - :quantity where s.coffeeId = :coffeeId and s.location = :location and s.quantity >= :quantity and s.quantity - :quantity <= s.max")
+    int decrementQuantity(@Param("coffeeId") Long coffeeId, @Param("location") String location, @Param("quantity") int quantityToDecrement);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CoffeeLocationStock s where s.coffeeId = :coffeeId")
+    int deleteByCoffeeId(@Param("coffeeId") Long coffeeId);
+}
@@ -1,12 +1,65 @@
 package com.projetocoffeestock.repository;
 
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
 import com.projetocoffeestock.entity.Coffee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CoffeeRepository extends JpaRepository<Coffee, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface CoffeeRepository extends JpaRepository<Coffee, Long>, CoffeeStockRepository, CoffeeSearchRepository {
 
     Optional<Coffee> findByName(String name);
-}
 
+    boolean existsByName(String name);
+
+    boolean existsByIdAndVersion(Long id, Long version);
+
+    @Query("select c.name from Coffee c")
+    List<String> findAllNames();
+
+    @Query("select c.name from Coffee c where c.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.projetocoffeestock.dto.CoffeeSummaryDTO(c.id, c.name, c.type, c.quantity) from Coffee c order by c.id")
+    List<CoffeeSummaryDTO> findAllSummaries();
+
+    @Query("select new com.projetocoffeestock.dto.CoffeeSummaryDTO(c.id, c.name, c.type, c.quantity) from Coffee c where c.id > :afterId order by c.id")
+    List<CoffeeSummaryDTO> findSummariesByIdGreaterThan(@Param("afterId") Long afterId, Pageable pageable);
+
+    List<Coffee> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Coffee> streamAllByOrderByIdAsc();
+
+    @Query("select c.type as type, sum(c.quantity) as quantity from Coffee c group by c.type")
+    List<CoffeeTypeQuantity> sumQuantityByType();
+
+    @Transactional
+    @Modifying
+    @Query("update Coffee c set c.quantity = c.quantity + :quantity, c.version = c.version + 1 where c.id = :id and c.quantity + :quantity <= c.max and c.quantity + :quantity >= 0")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToIncrement);
+
+    @Transactional
+    @Modifying
+    @Query("update Coffee c set c.quantity = c.quantity + :quantity, c.version = c.version + 1 where c.id = :id and c.quantity + :quantity <= c.max and c.quantity + :quantity >= 0 and c.version = :version")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToIncrement, @Param("version") long expectedVersion);
+
+    @Transactional
+    @Modifying
+    @Query("update Coffee c set c.quantity = c.quantity - :quantity, c.version = c.version + 1 where c.id = :id and c.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantityToDecrement);
+}
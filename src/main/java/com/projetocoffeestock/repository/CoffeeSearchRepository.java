@@ -0,0 +1,12 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.entity.Coffee;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface CoffeeSearchRepository {
+
+    List<Coffee> findAll(Specification<Coffee> specification, Sort sort, int limit);
+}
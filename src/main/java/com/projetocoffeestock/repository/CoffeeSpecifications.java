@@ -0,0 +1,64 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Expression;
+
+/**
+ * Filters for coffee searches. Type, brand prefix and quantity ranges map onto the
+ * indexes declared on {@link Coffee}; the fill ratio is compared as
+ * {@code quantity * 100} against {@code max * percent} so it stays in integers,
+ * and is checked on the rows those indexes select.
+ */
+public final class CoffeeSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private CoffeeSpecifications() {
+    }
+
+    public static Specification<Coffee> hasType(CoffeeType type) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("type"), type);
+    }
+
+    public static Specification<Coffee> brandStartsWith(String prefix) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, criteriaBuilder) -> criteriaBuilder.like(root.get("brand"), pattern, LIKE_ESCAPE);
+    }
+
+    public static Specification<Coffee> quantityAtLeast(int quantity) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.ge(root.get("quantity"), quantity);
+    }
+
+    public static Specification<Coffee> quantityAtMost(int quantity) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.le(root.get("quantity"), quantity);
+    }
+
+    public static Specification<Coffee> fillAtLeast(int percent) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.ge(
+                criteriaBuilder.prod(root.<Integer>get("quantity"), 100),
+                criteriaBuilder.prod(root.<Integer>get("max"), percent));
+    }
+
+    public static Specification<Coffee> fillAtMost(int percent) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.le(
+                criteriaBuilder.prod(root.<Integer>get("quantity"), 100),
+                criteriaBuilder.prod(root.<Integer>get("max"), percent));
+    }
+
+    public static <T extends Comparable<? super T>> Specification<Coffee> after(String attribute, Sort.Direction direction, T value, Long id) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<Long> idPath = root.get("id");
+            if ("id".equals(attribute)) {
+                return direction.isAscending() ? criteriaBuilder.gt(idPath, id) : criteriaBuilder.lt(idPath, id);
+            }
+            Expression<T> path = root.get(attribute);
+            return direction.isAscending()
+                    ? criteriaBuilder.or(criteriaBuilder.greaterThan(path, value), criteriaBuilder.and(criteriaBuilder.equal(path, value), criteriaBuilder.gt(idPath, id)))
+                    : criteriaBuilder.or(criteriaBuilder.lessThan(path, value), criteriaBuilder.and(criteriaBuilder.equal(path, value), criteriaBuilder.lt(idPath, id)));
+        };
+    }
+}
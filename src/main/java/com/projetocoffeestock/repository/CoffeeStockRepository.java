@@ -0,0 +1,8 @@
+package com.projetocoffeestock.repository;
+
+import java.util.Map;
+
+public interface CoffeeStockRepository {
+
+    void addToQuantities(Map<Long, StockChange> changesById);
+}
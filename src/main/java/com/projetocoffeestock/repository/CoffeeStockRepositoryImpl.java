@@ -0,0 +1,26 @@
+package com.projetocoffeestock.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeStockRepositoryImpl implements CoffeeStockRepository {
+
+    private static final String ADD_TO_QUANTITY_SQL = "update coffee set quantity = quantity + ?, version = version + ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addToQuantities(Map<Long, StockChange> changesById) {
+        List<Object[]> batchArgs = changesById.entrySet()
+                .stream()
+                .map(entry -> new Object[]{entry.getValue().getQuantity(), entry.getValue().getVersions(), entry.getKey()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(ADD_TO_QUANTITY_SQL, batchArgs);
+    }
+}
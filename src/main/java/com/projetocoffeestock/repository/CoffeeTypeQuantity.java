@@ -0,0 +1,10 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.enums.CoffeeType;
+
+public interface CoffeeTypeQuantity {
+
+    CoffeeType getType();
+
+    Long getQuantity();
+}
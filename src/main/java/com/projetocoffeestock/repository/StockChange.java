@@ -0,0 +1,15 @@
+package com.projetocoffeestock.repository;
+
+import lombok.Value;
+
+/**
+ * Stock accumulated in memory for one coffee: the quantity to add and how many
+ * changes it sums up, which is what the row version has to move by.
+ */
+@Value
+public class StockChange {
+
+    int quantity;
+
+    int versions;
+}
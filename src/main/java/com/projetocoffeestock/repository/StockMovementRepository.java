@@ -0,0 +1,20 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    List<StockMovement> findByCoffeeIdAndIdGreaterThanOrderByIdAsc(Long coffeeId, Long afterId, Pageable pageable);
+
+    @Query("select coalesce(sum(m.delta), 0) from StockMovement m where m.coffeeId = :coffeeId and m.id > :afterId and m.id <= :upToId")
+    long sumDeltas(@Param("coffeeId") Long coffeeId, @Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    @Query("select m.coffeeId from StockMovement m group by m.coffeeId order by count(m) desc")
+    List<Long> findMostMovedCoffeeIds(Pageable pageable);
+}
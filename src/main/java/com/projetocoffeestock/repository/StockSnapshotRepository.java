@@ -0,0 +1,13 @@
+package com.projetocoffeestock.repository;
+
+import com.projetocoffeestock.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findTopByCoffeeIdOrderByLastMovementIdDesc(Long coffeeId);
+
+    Optional<StockSnapshot> findTopByCoffeeIdAndLastMovementIdLessThanEqualOrderByLastMovementIdDesc(Long coffeeId, long movementId);
+}
@@ -0,0 +1,34 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole catalog, moved by every stock change and deletion, so list
+ * reads can be validated without running the list query. It starts from the boot
+ * time, so versions handed out before a restart never match the ones after it.
+ */
+@Component
+public class CoffeeCatalogVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong changes = new AtomicLong();
+
+    public String current() {
+        return epoch + "." + changes.get();
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        changes.incrementAndGet();
+    }
+}
@@ -0,0 +1,115 @@
+package com.projetocoffeestock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.exception.CoffeeIdempotencyKeyReusedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Results of writes sent with an idempotency key, kept in a bounded cache that drops
+ * them after a while. The first request for a key runs the write and records its
+ * result; a retry with the same key and request gets that result back without the
+ * write running again, and a retry that arrives while the first one is still running
+ * waits for it. A write that fails records nothing, so a waiting retry runs it itself.
+ */
+@Component
+public class CoffeeIdempotencyStore {
+
+    public static final String CACHE_NAME = "coffeeIdempotencyKeys";
+
+    private static final Call UNKEYED = new Call(null, null, null, null);
+
+    private final Cache<String, Entry> cache;
+
+    @Autowired
+    public CoffeeIdempotencyStore(MeterRegistry meterRegistry,
+                                  @Value("${coffee.idempotency.maximum-size:100000}") long maximumSize,
+                                  @Value("${coffee.idempotency.expire-after-write:24h}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Claims the key for the given request. The returned call either carries the
+     * recorded result in {@link Call#replayed()} or, when that is null, expects the
+     * caller to run the write and hand its result to {@link Call#complete(CoffeeDTO)}
+     * before closing it. A null key gives a call that records nothing.
+     */
+    public Call claim(String key, Object request) throws CoffeeIdempotencyKeyReusedException {
+        if (key == null) {
+            return UNKEYED;
+        }
+        ConcurrentMap<String, Entry> entries = cache.asMap();
+        while (true) {
+            Entry entry = new Entry(request);
+            Entry recorded = entries.putIfAbsent(key, entry);
+            if (recorded == null) {
+                return new Call(entries, key, entry, null);
+            }
+            if (!recorded.request.equals(request)) {
+                throw new CoffeeIdempotencyKeyReusedException(key);
+            }
+            CoffeeDTO result = recorded.result.join();
+            if (result != null) {
+                return new Call(null, null, null, result);
+            }
+            entries.remove(key, recorded);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object request;
+        private final CompletableFuture<CoffeeDTO> result = new CompletableFuture<>();
+
+        private Entry(Object request) {
+            this.request = request;
+        }
+    }
+
+    public static final class Call implements AutoCloseable {
+
+        private final ConcurrentMap<String, Entry> entries;
+        private final String key;
+        private final Entry entry;
+        private final CoffeeDTO replayed;
+
+        private Call(ConcurrentMap<String, Entry> entries, String key, Entry entry, CoffeeDTO replayed) {
+            this.entries = entries;
+            this.key = key;
+            this.entry = entry;
+            this.replayed = replayed;
+        }
+
+        public CoffeeDTO replayed() {
+            return replayed;
+        }
+
+        public void complete(CoffeeDTO result) {
+            if (entry != null) {
+                entry.result.complete(result);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (entry != null && !entry.result.isDone()) {
+                entries.remove(key, entry);
+                entry.result.complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.projetocoffeestock.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeImportErrorDTO;
+import com.projetocoffeestock.dto.CoffeeImportResultDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.exception.CoffeeImportFormatException;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports coffees from CSV or NDJSON uploads one line at a time. Valid rows are
+ * grouped in chunks; each chunk costs one name lookup for duplicates and one batched
+ * insert, so memory stays bounded by the chunk size and the error cap no
+ * matter how large the upload is.
+ */
+@Service
+public class CoffeeImportService {
+
+    private static final List<String> CSV_COLUMNS = Arrays.asList("name", "brand", "max", "quantity", "type");
+
+    private final CoffeeRepository coffeeRepository;
+    private final Validator validator;
+    private final ObjectReader coffeeReader;
+    private final CoffeeNameIndex coffeeNameIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+
+    @Autowired
+    public CoffeeImportService(CoffeeRepository coffeeRepository,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               CoffeeNameIndex coffeeNameIndex,
+                               TransactionTemplate transactionTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${coffee.import.chunk-size:1000}") int chunkSize,
+                               @Value("${coffee.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.coffeeRepository = coffeeRepository;
+        this.validator = validator;
+        this.coffeeReader = objectMapper.readerFor(CoffeeDTO.class);
+        this.coffeeNameIndex = coffeeNameIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public CoffeeImportResultDTO importCsv(Reader reader) throws IOException, CoffeeImportFormatException {
+        BufferedReader lines = new BufferedReader(reader);
+        String header = lines.readLine();
+        if (header == null) {
+            throw new CoffeeImportFormatException("CSV upload is empty, a header line is required.");
+        }
+        int[] columnIndexes = csvColumnIndexes(splitCsvLine(header));
+        ImportRun run = new ImportRun(1);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            run.lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(parseCsvRow(splitCsvLine(line), columnIndexes));
+            } catch (IllegalArgumentException e) {
+                run.reject(e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    public CoffeeImportResultDTO importNdjson(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        ImportRun run = new ImportRun(0);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            run.lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            CoffeeDTO coffeeDTO;
+            try {
+                coffeeDTO = coffeeReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                run.reject("Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(coffeeDTO);
+        }
+        return run.finish();
+    }
+
+    private int[] csvColumnIndexes(List<String> header) throws CoffeeImportFormatException {
+        Map<String, Integer> indexesByName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            indexesByName.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] columnIndexes = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+            Integer index = indexesByName.get(CSV_COLUMNS.get(i));
+            if (index == null) {
+                throw new CoffeeImportFormatException(String.format("CSV header must contain the columns %s, missing %s.", CSV_COLUMNS, CSV_COLUMNS.get(i)));
+            }
+            columnIndexes[i] = index;
+        }
+        return columnIndexes;
+    }
+
+    private CoffeeDTO parseCsvRow(List<String> fields, int[] columnIndexes) {
+        if (fields.size() < CSV_COLUMNS.size()) {
+            throw new IllegalArgumentException(String.format("Expected %d columns but found %d.", CSV_COLUMNS.size(), fields.size()));
+        }
+        return CoffeeDTO.builder()
+                .name(emptyToNull(fields.get(columnIndexes[0])))
+                .brand(emptyToNull(fields.get(columnIndexes[1])))
+                .max(parseInteger("max", fields.get(columnIndexes[2])))
+                .quantity(parseInteger("quantity", fields.get(columnIndexes[3])))
+                .type(parseType(fields.get(columnIndexes[4])))
+                .build();
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static Integer parseInteger(String column, String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("%s must be an integer but was '%s'.", column, trimmed));
+        }
+    }
+
+    private static CoffeeType parseType(String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return CoffeeType.valueOf(trimmed.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("type must be one of %s but was '%s'.", Arrays.toString(CoffeeType.values()), trimmed));
+        }
+    }
+
+    private final class ImportRun {
+
+        private long lineNumber;
+        private long imported;
+        private long rejected;
+        private boolean errorsTruncated;
+        private final List<CoffeeImportErrorDTO> errors = new ArrayList<>();
+        private final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        private final Set<String> chunkNames = new HashSet<>();
+
+        private ImportRun(long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        private void accept(CoffeeDTO coffeeDTO) {
+            Set<ConstraintViolation<CoffeeDTO>> violations = validator.validate(coffeeDTO);
+            if (!violations.isEmpty()) {
+                reject(violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            if (!chunkNames.add(coffeeDTO.getName())) {
+                reject(String.format("Coffee with name %s appears more than once in the upload.", coffeeDTO.getName()));
+                return;
+            }
+            chunk.add(new PendingRow(lineNumber, coffeeMapper.toModel(coffeeDTO)));
+            if (chunk.size() >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        private void reject(String error) {
+            reject(lineNumber, error);
+        }
+
+        private void reject(long line, String error) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CoffeeImportErrorDTO(line, error));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private void flushChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                insertNewCoffees();
+            } catch (DataIntegrityViolationException e) {
+                // a coffee with one of these names was created concurrently; look the names up again once
+                chunk.forEach(row -> {
+                    row.coffee.setId(null);
+                    row.coffee.setVersion(null);
+                });
+                try {
+                    insertNewCoffees();
+                } catch (DataIntegrityViolationException retryFailure) {
+                    chunk.forEach(row -> reject(row.line, "Chunk could not be inserted: " + retryFailure.getMostSpecificCause().getMessage()));
+                }
+            }
+            chunk.clear();
+            chunkNames.clear();
+        }
+
+        private void insertNewCoffees() {
+            Set<String> existingNames = new HashSet<>(coffeeRepository.findExistingNames(chunkNames));
+            List<Coffee> newCoffees = new ArrayList<>(chunk.size());
+            List<PendingRow> duplicatedRows = new ArrayList<>();
+            for (PendingRow row : chunk) {
+                if (existingNames.contains(row.coffee.getName())) {
+                    duplicatedRows.add(row);
+                } else {
+                    newCoffees.add(row.coffee);
+                }
+            }
+            if (!newCoffees.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> coffeeRepository.saveAll(newCoffees));
+                newCoffees.forEach(coffee -> {
+                    coffeeNameIndex.add(coffee.getName());
+                    eventPublisher.publishEvent(new CoffeeStockChangedEvent(coffeeMapper.toDTO(coffee), coffee.getQuantity(), StockMovementReason.CREATED));
+                });
+            }
+            imported += newCoffees.size();
+            duplicatedRows.forEach(row -> reject(row.line, String.format("Coffee with name %s already registered in the system.", row.coffee.getName())));
+        }
+
+        private CoffeeImportResultDTO finish() {
+            flushChunk();
+            return CoffeeImportResultDTO.builder()
+                    .imported(imported)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .errorsTruncated(errorsTruncated)
+                    .build();
+        }
+    }
+
+    private static final class PendingRow {
+
+        private final long line;
+        private final Coffee coffee;
+
+        private PendingRow(long line, Coffee coffee) {
+            this.line = line;
+            this.coffee = coffee;
+        }
+    }
+}
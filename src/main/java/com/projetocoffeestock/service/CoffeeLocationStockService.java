@@ -0,0 +1,148 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeLocationStockDTO;
+import com.projetocoffeestock.dto.CoffeeLocationsStockDTO;
+import com.projetocoffeestock.entity.CoffeeLocationStock;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeLocationInvalidException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.repository.CoffeeLocationStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Stock of a coffee split by location. The default location is the coffee's own
+ * quantity, so it keeps going through {@link CoffeeService} with its ledger, holds
+ * and stock events; every other location is a row of its own, changed by a single
+ * conditional update, so writes to different locations never touch the same row.
+ * A location row is created by its first increment, capped by the coffee's max.
+ */
+@Service
+public class CoffeeLocationStockService {
+
+    private static final Pattern LOCATION = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final CoffeeLocationStockRepository coffeeLocationStockRepository;
+    private final CoffeeService coffeeService;
+    private final CoffeeStockLedger coffeeStockLedger;
+    private final String defaultLocation;
+
+    @Autowired
+    public CoffeeLocationStockService(CoffeeLocationStockRepository coffeeLocationStockRepository,
+                                      CoffeeService coffeeService,
+                                      CoffeeStockLedger coffeeStockLedger,
+                                      @Value("${coffee.locations.default:main}") String defaultLocation) {
+        this.coffeeLocationStockRepository = coffeeLocationStockRepository;
+        this.coffeeService = coffeeService;
+        this.coffeeStockLedger = coffeeStockLedger;
+        this.defaultLocation = defaultLocation;
+    }
+
+    public CoffeeLocationsStockDTO stockOf(Long id) throws CoffeeNotFoundException {
+        CoffeeDTO coffeeDTO = coffeeStockLedger.current(id);
+        List<CoffeeLocationStockDTO> locations = new ArrayList<>();
+        locations.add(toDefaultLocationDTO(coffeeDTO));
+        coffeeLocationStockRepository.findByCoffeeIdOrderByLocationAsc(id)
+                .forEach(stock -> locations.add(toDTO(stock)));
+        long total = locations.stream()
+                .mapToLong(CoffeeLocationStockDTO::getQuantity)
+                .sum();
+        return new CoffeeLocationsStockDTO(id, total, locations);
+    }
+
+    public CoffeeLocationStockDTO increment(Long id, String location, int quantityToIncrement) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException {
+        if (defaultLocation.equals(location)) {
+            return toDefaultLocationDTO(coffeeService.increment(id, quantityToIncrement));
+        }
+        verifyLocation(location);
+        if (coffeeLocationStockRepository.incrementQuantity(id, location, quantityToIncrement) == 0) {
+            create(id, location, quantityToIncrement);
+        }
+        return stockAt(id, location);
+    }
+
+    public CoffeeLocationStockDTO decrement(Long id, String location, int quantityToDecrement) throws CoffeeNotFoundException, CoffeeInsufficientStockException, CoffeeLocationInvalidException {
+        CoffeeStockLedger.verifyDecrement(quantityToDecrement);
+        if (defaultLocation.equals(location)) {
+            return toDefaultLocationDTO(coffeeService.decrement(id, quantityToDecrement));
+        }
+        verifyLocation(location);
+        if (coffeeLocationStockRepository.decrementQuantity(id, location, quantityToDecrement) == 0) {
+            coffeeStockLedger.current(id);
+            throw new CoffeeInsufficientStockException(id, quantityToDecrement);
+        }
+        return stockAt(id, location);
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        coffeeLocationStockRepository.deleteByCoffeeId(event.getCoffee().getId());
+    }
+
+    /**
+     * Creates the row after an increment found none. Another increment may have created
+     * it in between, either before the lookup here or by winning the insert, in which
+     * case the increment is applied to that row and only rejected if it fails again.
+     */
+    private void create(Long id, String location, int quantity) throws CoffeeNotFoundException, CoffeeStockExceededException {
+        if (coffeeLocationStockRepository.findByCoffeeIdAndLocation(id, location).isPresent()) {
+            incrementExisting(id, location, quantity);
+            return;
+        }
+        int max = coffeeStockLedger.current(id).getMax();
+        if (quantity < 0 || quantity > max) {
+            throw new CoffeeStockExceededException(id, quantity);
+        }
+        try {
+            coffeeLocationStockRepository.saveAndFlush(new CoffeeLocationStock(null, id, location, max, quantity));
+        } catch (DataIntegrityViolationException e) {
+            incrementExisting(id, location, quantity);
+        }
+    }
+
+    private void incrementExisting(Long id, String location, int quantity) throws CoffeeStockExceededException {
+        if (coffeeLocationStockRepository.incrementQuantity(id, location, quantity) == 0) {
+            throw new CoffeeStockExceededException(id, quantity);
+        }
+    }
+
+    private CoffeeLocationStockDTO stockAt(Long id, String location) throws CoffeeNotFoundException {
+        return coffeeLocationStockRepository.findByCoffeeIdAndLocation(id, location)
+                .map(this::toDTO)
+                .orElseThrow(() -> new CoffeeNotFoundException(id));
+    }
+
+    private void verifyLocation(String location) throws CoffeeLocationInvalidException {
+        if (location == null || !LOCATION.matcher(location).matches()) {
+            throw new CoffeeLocationInvalidException(location);
+        }
+    }
+
+    private CoffeeLocationStockDTO toDefaultLocationDTO(CoffeeDTO coffeeDTO) {
+        return CoffeeLocationStockDTO.builder()
+                .coffeeId(coffeeDTO.getId())
+                .location(defaultLocation)
+                .quantity(coffeeDTO.getQuantity())
+                .max(coffeeDTO.getMax())
+                .build();
+    }
+
+    private CoffeeLocationStockDTO toDTO(CoffeeLocationStock stock) {
+        return CoffeeLocationStockDTO.builder()
+                .coffeeId(stock.getCoffeeId())
+                .location(stock.getLocation())
+                .quantity(stock.getQuantity())
+                .max(stock.getMax())
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.projetocoffeestock.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of coffees by name. Loads run inside the cache's
+ * per-key computation, so an eviction issued while a load is in flight waits for
+ * it and then removes the loaded value instead of being overwritten by it.
+ *
+ * <p>Concurrent misses for the same name share a single load: the first caller runs
+ * it and the others wait on its result, including a null result for a name that is
+ * not registered, which is not cached. An eviction also detaches the load in flight,
+ * so a lookup that starts after a write never joins a load that read before it.
+ *
+ * <p>Each lookup records exactly one hit or miss in the cache stats: the fast path
+ * probes the map without recording and counts its own hit, a lookup that joins a load
+ * in flight counts a miss, and the cache's own get records the rest.
+ */
+@Component
+public class CoffeeNameCache {
+
+    public static final String CACHE_NAME = "coffeesByName";
+    public static final String COALESCED_COUNTER = "coffee.cache.by-name.coalesced";
+
+    private final Cache<String, CoffeeDTO> cache;
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final ConcurrentMap<String, CompletableFuture<CoffeeDTO>> loadsInFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedLookups;
+
+    @Autowired
+    public CoffeeNameCache(MeterRegistry meterRegistry,
+                           @Value("${coffee.cache.by-name.maximum-size:10000}") long maximumSize,
+                           @Value("${coffee.cache.by-name.expire-after-write:60s}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats(() -> statsCounter)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.coalescedLookups = meterRegistry.counter(COALESCED_COUNTER);
+    }
+
+    public CoffeeDTO get(String name, Function<String, CoffeeDTO> loader) {
+        CoffeeDTO cached = cache.asMap().get(name);
+        if (cached != null) {
+            statsCounter.recordHits(1);
+            return cached;
+        }
+        CompletableFuture<CoffeeDTO> load = new CompletableFuture<>();
+        CompletableFuture<CoffeeDTO> loadInFlight = loadsInFlight.putIfAbsent(name, load);
+        if (loadInFlight != null) {
+            statsCounter.recordMisses(1);
+            coalescedLookups.increment();
+            return join(loadInFlight);
+        }
+        try {
+            CoffeeDTO loaded = cache.get(name, loader);
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(name, load);
+        }
+    }
+
+    public void evict(String name) {
+        cache.invalidate(name);
+        loadsInFlight.remove(name);
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static CoffeeDTO join(CompletableFuture<CoffeeDTO> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
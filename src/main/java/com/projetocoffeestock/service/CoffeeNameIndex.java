@@ -0,0 +1,44 @@
+package com.projetocoffeestock.service;
+
+import lombok.RequiredArgsConstructor;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of registered coffee names, loaded once at startup and updated on
+ * every create, import and delete. It may hold names that are already gone, which
+ * only costs an extra database probe, but a name missing from it is never trusted
+ * blindly: the unique constraint on the name column still rejects the insert.
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeNameIndex {
+
+    private final CoffeeRepository coffeeRepository;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private volatile boolean warm;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void warmUp() {
+        names.addAll(coffeeRepository.findAllNames());
+        warm = true;
+    }
+
+    public boolean mightContain(String name) {
+        return !warm || names.contains(name);
+    }
+
+    public void add(String name) {
+        names.add(name);
+    }
+
+    public void remove(String name) {
+        names.remove(name);
+    }
+}
@@ -0,0 +1,25 @@
+package com.projetocoffeestock.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum CoffeeOperation {
+
+    CREATE_COFFEE("createCoffee"),
+    FIND_BY_NAME("findByName"),
+    LIST_ALL("listAll"),
+    LIST_SUMMARIES("listSummaries"),
+    LIST_SUMMARY_PAGE("listSummaryPage"),
+    LIST_PAGE("listPage"),
+    STREAM_ALL("streamAll"),
+    SEARCH("search"),
+    DELETE_BY_ID("deleteById"),
+    INCREMENT("increment"),
+    INCREMENT_ALL("incrementAll"),
+    DECREMENT("decrement"),
+    CONFIRM_HOLD("confirmHold");
+
+    private final String tag;
+}
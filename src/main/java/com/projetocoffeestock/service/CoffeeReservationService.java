@@ -0,0 +1,129 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeReservationDTO;
+import com.projetocoffeestock.dto.CoffeeReservationRequestDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeReservationNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds stock for checkouts until they are confirmed, released or expire. Expiry
+ * comes off a delay queue ordered by deadline, so the scheduled task only ever
+ * touches reservations that are due. Confirmed and released reservations stay in
+ * the queue until their deadline and are skipped there.
+ */
+@Service
+public class CoffeeReservationService {
+
+    private final CoffeeService coffeeService;
+    private final CoffeeStockHolds coffeeStockHolds;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Clock clock;
+    private final ConcurrentMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final DelayQueue<Reservation> expiries = new DelayQueue<>();
+
+    @Autowired
+    public CoffeeReservationService(CoffeeService coffeeService,
+                                    CoffeeStockHolds coffeeStockHolds,
+                                    @Value("${coffee.reservations.default-ttl:5m}") Duration defaultTtl,
+                                    @Value("${coffee.reservations.max-ttl:30m}") Duration maxTtl) {
+        this(coffeeService, coffeeStockHolds, defaultTtl, maxTtl, Clock.systemUTC());
+    }
+
+    CoffeeReservationService(CoffeeService coffeeService, CoffeeStockHolds coffeeStockHolds, Duration defaultTtl, Duration maxTtl, Clock clock) {
+        this.coffeeService = coffeeService;
+        this.coffeeStockHolds = coffeeStockHolds;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.clock = clock;
+    }
+
+    public CoffeeReservationDTO reserve(CoffeeReservationRequestDTO request) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        Duration ttl = request.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(request.getTtlSeconds());
+        if (ttl.compareTo(maxTtl) > 0) {
+            ttl = maxTtl;
+        }
+        coffeeStockHolds.hold(request.getCoffeeId(), request.getQuantity());
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), request.getCoffeeId(), request.getQuantity(), clock.instant().plus(ttl));
+        reservations.put(reservation.id, reservation);
+        expiries.add(reservation);
+        return reservation.toDTO();
+    }
+
+    public CoffeeDTO confirm(String reservationId) throws CoffeeReservationNotFoundException, CoffeeNotFoundException, CoffeeInsufficientStockException {
+        Reservation reservation = take(reservationId);
+        if (reservation.getDelay(TimeUnit.NANOSECONDS) <= 0) {
+            coffeeStockHolds.release(reservation.coffeeId, reservation.quantity);
+            throw new CoffeeReservationNotFoundException(reservationId);
+        }
+        return coffeeService.confirmHold(reservation.coffeeId, reservation.quantity);
+    }
+
+    public void release(String reservationId) throws CoffeeReservationNotFoundException {
+        Reservation reservation = take(reservationId);
+        coffeeStockHolds.release(reservation.coffeeId, reservation.quantity);
+    }
+
+    @Scheduled(fixedDelayString = "${coffee.reservations.expiry-check-ms:250}")
+    public void expire() {
+        Reservation reservation;
+        while ((reservation = expiries.poll()) != null) {
+            if (reservations.remove(reservation.id, reservation)) {
+                coffeeStockHolds.release(reservation.coffeeId, reservation.quantity);
+            }
+        }
+    }
+
+    private Reservation take(String reservationId) throws CoffeeReservationNotFoundException {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            throw new CoffeeReservationNotFoundException(reservationId);
+        }
+        return reservation;
+    }
+
+    private final class Reservation implements Delayed {
+
+        private final String id;
+        private final Long coffeeId;
+        private final int quantity;
+        private final Instant expiresAt;
+
+        private Reservation(String id, Long coffeeId, int quantity, Instant expiresAt) {
+            this.id = id;
+            this.coffeeId = coffeeId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(clock.instant(), expiresAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return expiresAt.compareTo(((Reservation) other).expiresAt);
+        }
+
+        private CoffeeReservationDTO toDTO() {
+            return new CoffeeReservationDTO(id, coffeeId, quantity, expiresAt);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeSortField;
+import com.projetocoffeestock.exception.CoffeeSearchCursorException;
+import com.projetocoffeestock.repository.CoffeeSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position of a search page: the id and sort value of its last coffee.
+ */
+final class CoffeeSearchCursor {
+
+    private CoffeeSearchCursor() {
+    }
+
+    static String of(CoffeeSortField sort, Coffee lastCoffee) {
+        String position = lastCoffee.getId() + ":" + sortValueOf(sort, lastCoffee);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Specification<Coffee> after(String cursor, CoffeeSortField sort, Sort.Direction direction) throws CoffeeSearchCursorException {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            Long id = Long.valueOf(position.substring(0, separator));
+            String value = position.substring(separator + 1);
+            switch (sort) {
+                case QUANTITY:
+                    return CoffeeSpecifications.after(sort.getAttribute(), direction, Integer.valueOf(value), id);
+                case NAME:
+                case BRAND:
+                    return CoffeeSpecifications.after(sort.getAttribute(), direction, value, id);
+                default:
+                    return CoffeeSpecifications.after(sort.getAttribute(), direction, id, id);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new CoffeeSearchCursorException(cursor);
+        }
+    }
+
+    private static Object sortValueOf(CoffeeSortField sort, Coffee coffee) {
+        switch (sort) {
+            case NAME:
+                return coffee.getName();
+            case BRAND:
+                return coffee.getBrand();
+            case QUANTITY:
+                return coffee.getQuantity();
+            default:
+                return coffee.getId();
+        }
+    }
+}
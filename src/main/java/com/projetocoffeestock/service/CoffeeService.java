@@ -1,73 +1,415 @@
 package com.projetocoffeestock.service;
 
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementResultDTO;
+import com.projetocoffeestock.dto.CoffeePageDTO;
+import com.projetocoffeestock.dto.CoffeeSearchDTO;
+import com.projetocoffeestock.dto.CoffeeSearchPageDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryPageDTO;
 import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeSortField;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
 import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
 import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeSearchCursorException;
 import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
 import com.projetocoffeestock.mapper.CoffeeMapper;
 import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.CoffeeSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @AllArgsConstructor(onConstructor = @__(@Autowired))
 public class CoffeeService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final CoffeeRepository coffeeRepository;
+    private final CoffeeStockLedger coffeeStockLedger;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final CoffeeNameCache coffeeNameCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CoffeeNameIndex coffeeNameIndex;
+    private final CoffeeStockHolds coffeeStockHolds;
+    private final HotStockTable hotStockTable;
     private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
 
+    @MeteredOperation(CoffeeOperation.CREATE_COFFEE)
     public CoffeeDTO createCoffee(CoffeeDTO coffeeDTO) throws CoffeeAlreadyRegisteredException {
         verifyIfIsAlreadyRegistered(coffeeDTO.getName());
         Coffee coffee = coffeeMapper.toModel(coffeeDTO);
-        Coffee savedCoffee = coffeeRepository.save(coffee);
-        return coffeeMapper.toDTO(savedCoffee);
+        Coffee savedCoffee = saveNew(coffee);
+        coffeeNameIndex.add(savedCoffee.getName());
+        coffeeNameCache.evict(savedCoffee.getName());
+        CoffeeDTO savedCoffeeDTO = coffeeMapper.toDTO(savedCoffee);
+        eventPublisher.publishEvent(new CoffeeStockChangedEvent(savedCoffeeDTO, savedCoffeeDTO.getQuantity(), StockMovementReason.CREATED));
+        return savedCoffeeDTO;
     }
 
+    @MeteredOperation(CoffeeOperation.FIND_BY_NAME)
     public CoffeeDTO findByName(String name) throws CoffeeNotFoundException {
-        Coffee foundCoffee = coffeeRepository.findByName(name)
-                .orElseThrow(() -> new CoffeeNotFoundException(name));
-        return coffeeMapper.toDTO(foundCoffee);
+        CoffeeDTO foundCoffeeDTO = hotStockTable.findByName(name);
+        if (foundCoffeeDTO == null) {
+            foundCoffeeDTO = coffeeNameCache.get(name, this::loadByName);
+        }
+        if (foundCoffeeDTO == null) {
+            throw new CoffeeNotFoundException(name);
+        }
+        return foundCoffeeDTO;
+    }
+
+    private CoffeeDTO loadByName(String name) {
+        return coffeeRepository.findByName(name)
+                .map(this::toCurrentDTO)
+                .orElse(null);
     }
 
+    @MeteredOperation(CoffeeOperation.LIST_ALL)
     public List<CoffeeDTO> listAll() {
         return coffeeRepository.findAll()
                 .stream()
-                .map(coffeeMapper::toDTO)
+                .map(this::toCurrentDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    @MeteredOperation(CoffeeOperation.LIST_SUMMARIES)
+    public List<CoffeeSummaryDTO> listSummaries() {
+        List<CoffeeSummaryDTO> summaries = coffeeRepository.findAllSummaries();
+        summaries.forEach(summary -> summary.setQuantity(coffeeStockLedger.quantityOf(summary.getId(), summary.getQuantity())));
+        return summaries;
+    }
+
+    @Transactional(readOnly = true)
+    @MeteredOperation(CoffeeOperation.LIST_SUMMARY_PAGE)
+    public CoffeeSummaryPageDTO listSummaryPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<CoffeeSummaryDTO> content = coffeeRepository.findSummariesByIdGreaterThan(afterId == null ? 0L : afterId, PageRequest.of(0, pageSize));
+        content.forEach(summary -> summary.setQuantity(coffeeStockLedger.quantityOf(summary.getId(), summary.getQuantity())));
+        Long nextAfterId = content.size() == pageSize ? content.get(content.size() - 1).getId() : null;
+        return new CoffeeSummaryPageDTO(content, nextAfterId);
+    }
+
+    @MeteredOperation(CoffeeOperation.LIST_PAGE)
+    public CoffeePageDTO listPage(Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<CoffeeDTO> content = coffeeRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, PageRequest.of(0, pageSize))
+                .stream()
+                .map(this::toCurrentDTO)
+                .collect(Collectors.toList());
+        Long nextAfterId = content.size() == pageSize ? content.get(content.size() - 1).getId() : null;
+        return new CoffeePageDTO(content, nextAfterId);
+    }
+
+    /**
+     * Filters and sorts on the persisted quantities without flushing the ledger, so a
+     * search never writes on the request thread. Those quantities trail the ledger by
+     * at most the ledger's max lag; the coffees returned carry the ledger's current
+     * quantity, which may already be just outside a quantity or fill filter.
+     */
+    @MeteredOperation(CoffeeOperation.SEARCH)
+    public CoffeeSearchPageDTO search(CoffeeSearchDTO search) throws CoffeeSearchCursorException {
+        int pageSize = Math.max(1, Math.min(search.getSize(), MAX_PAGE_SIZE));
+        Specification<Coffee> specification = searchSpecification(search);
+        Sort sort = search.getSort() == CoffeeSortField.ID
+                ? Sort.by(search.getDirection(), "id")
+                : Sort.by(search.getDirection(), search.getSort().getAttribute(), "id");
+        List<Coffee> coffees = coffeeRepository.findAll(specification, sort, pageSize + 1);
+        List<CoffeeDTO> content = coffees.stream()
+                .limit(pageSize)
+                .map(this::toCurrentDTO)
+                .collect(Collectors.toList());
+        String nextCursor = coffees.size() > pageSize ? CoffeeSearchCursor.of(search.getSort(), coffees.get(pageSize - 1)) : null;
+        return new CoffeeSearchPageDTO(content, nextCursor);
+    }
+
+    private Specification<Coffee> searchSpecification(CoffeeSearchDTO search) throws CoffeeSearchCursorException {
+        Specification<Coffee> specification = Specification.where(null);
+        if (search.getType() != null) {
+            specification = specification.and(CoffeeSpecifications.hasType(search.getType()));
+        }
+        if (search.getBrand() != null) {
+            specification = specification.and(CoffeeSpecifications.brandStartsWith(search.getBrand()));
+        }
+        if (search.getMinQuantity() != null) {
+            specification = specification.and(CoffeeSpecifications.quantityAtLeast(search.getMinQuantity()));
+        }
+        if (search.getMaxQuantity() != null) {
+            specification = specification.and(CoffeeSpecifications.quantityAtMost(search.getMaxQuantity()));
+        }
+        if (search.getMinFillPercent() != null) {
+            specification = specification.and(CoffeeSpecifications.fillAtLeast(search.getMinFillPercent()));
+        }
+        if (search.getMaxFillPercent() != null) {
+            specification = specification.and(CoffeeSpecifications.fillAtMost(search.getMaxFillPercent()));
+        }
+        if (search.getAfter() != null) {
+            specification = specification.and(CoffeeSearchCursor.after(search.getAfter(), search.getSort(), search.getDirection()));
+        }
+        return specification;
+    }
+
+    @Transactional(readOnly = true)
+    @MeteredOperation(CoffeeOperation.STREAM_ALL)
+    public void streamAll(Consumer<CoffeeDTO> consumer) {
+        try (Stream<Coffee> coffees = coffeeRepository.streamAllByOrderByIdAsc()) {
+            coffees.forEach(coffee -> {
+                consumer.accept(toCurrentDTO(coffee));
+                entityManager.detach(coffee);
+            });
+        }
+    }
+
+    @MeteredOperation(CoffeeOperation.DELETE_BY_ID)
     public void deleteById(Long id) throws CoffeeNotFoundException {
-        verifyIfExists(id);
+        Coffee coffeeToDelete = verifyIfExists(id);
+        CoffeeDTO deletedCoffeeDTO = toCurrentDTO(coffeeToDelete);
         coffeeRepository.deleteById(id);
+        coffeeStockLedger.evict(id);
+        coffeeNameCache.evict(coffeeToDelete.getName());
+        coffeeNameIndex.remove(coffeeToDelete.getName());
+        eventPublisher.publishEvent(new CoffeeDeletedEvent(deletedCoffeeDTO));
     }
 
     private void verifyIfIsAlreadyRegistered(String name) throws CoffeeAlreadyRegisteredException {
-        Optional<Coffee> optSavedCoffee = coffeeRepository.findByName(name);
-        if (optSavedCoffee.isPresent()) {
+        if (coffeeNameIndex.mightContain(name) && coffeeRepository.existsByName(name)) {
             throw new CoffeeAlreadyRegisteredException(name);
         }
     }
 
+    private Coffee saveNew(Coffee coffee) throws CoffeeAlreadyRegisteredException {
+        try {
+            return coffeeRepository.save(coffee);
+        } catch (DataIntegrityViolationException e) {
+            if (coffeeRepository.existsByName(coffee.getName())) {
+                coffeeNameIndex.add(coffee.getName());
+                throw new CoffeeAlreadyRegisteredException(coffee.getName());
+            }
+            throw e;
+        }
+    }
+
     private Coffee verifyIfExists(Long id) throws CoffeeNotFoundException {
         return coffeeRepository.findById(id)
                 .orElseThrow(() -> new CoffeeNotFoundException(id));
     }
 
+    private CoffeeDTO toCurrentDTO(Coffee coffee) {
+        CoffeeDTO coffeeDTO = coffeeMapper.toDTO(coffee);
+        coffeeStockLedger.applyTo(coffeeDTO);
+        return coffeeDTO;
+    }
+
+    @MeteredOperation(CoffeeOperation.INCREMENT)
     public CoffeeDTO increment(Long id, int quantityToIncrement) throws CoffeeNotFoundException, CoffeeStockExceededException {
-        Coffee coffeeToIncrementStock = verifyIfExists(id);
-        int quantityAfterIncrement = quantityToIncrement + coffeeToIncrementStock.getQuantity();
-        if (quantityAfterIncrement <= coffeeToIncrementStock.getMax()) {
-            coffeeToIncrementStock.setQuantity(coffeeToIncrementStock.getQuantity() + quantityToIncrement);
-            Coffee incrementedCoffeeStock = coffeeRepository.save(coffeeToIncrementStock);
-            return coffeeMapper.toDTO(incrementedCoffeeStock);
+        holdRemovedUnits(id, quantityToIncrement);
+        try {
+            return incremented(coffeeStockLedger.increment(id, quantityToIncrement), quantityToIncrement);
+        } finally {
+            releaseRemovedUnits(id, quantityToIncrement);
         }
-        throw new CoffeeStockExceededException(id, quantityToIncrement);
     }
-}
 
+    @MeteredOperation(CoffeeOperation.INCREMENT)
+    public CoffeeDTO increment(Long id, int quantityToIncrement, long expectedVersion) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeVersionMismatchException {
+        holdRemovedUnits(id, quantityToIncrement);
+        try {
+            return incremented(coffeeStockLedger.increment(id, quantityToIncrement, expectedVersion), quantityToIncrement);
+        } finally {
+            releaseRemovedUnits(id, quantityToIncrement);
+        }
+    }
+
+    /**
+     * A negative increment takes units out of the stock just like a decrement, so it
+     * holds them first and is rejected when they are already held by a reservation.
+     */
+    private void holdRemovedUnits(Long id, int quantityToIncrement) throws CoffeeNotFoundException, CoffeeStockExceededException {
+        if (quantityToIncrement < 0) {
+            try {
+                coffeeStockHolds.hold(id, -quantityToIncrement);
+            } catch (CoffeeInsufficientStockException e) {
+                throw new CoffeeStockExceededException(id, quantityToIncrement);
+            }
+        }
+    }
+
+    private void releaseRemovedUnits(Long id, int quantityToIncrement) {
+        if (quantityToIncrement < 0) {
+            coffeeStockHolds.release(id, -quantityToIncrement);
+        }
+    }
+
+    private CoffeeDTO incremented(CoffeeDTO incrementedCoffeeDTO, int quantityToIncrement) {
+        coffeeNameCache.evict(incrementedCoffeeDTO.getName());
+        eventPublisher.publishEvent(new CoffeeStockChangedEvent(incrementedCoffeeDTO, quantityToIncrement, StockMovementReason.INCREMENT));
+        return incrementedCoffeeDTO;
+    }
+
+    @MeteredOperation(CoffeeOperation.DECREMENT)
+    public CoffeeDTO decrement(Long id, int quantityToDecrement) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        CoffeeStockLedger.verifyDecrement(quantityToDecrement);
+        coffeeStockHolds.hold(id, quantityToDecrement);
+        return decrementHeld(id, quantityToDecrement);
+    }
+
+    @MeteredOperation(CoffeeOperation.CONFIRM_HOLD)
+    public CoffeeDTO confirmHold(Long id, int quantityToDecrement) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        return decrementHeld(id, quantityToDecrement);
+    }
+
+    private CoffeeDTO decrementHeld(Long id, int quantityToDecrement) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        try {
+            CoffeeDTO decrementedCoffeeDTO = coffeeStockLedger.decrement(id, quantityToDecrement);
+            coffeeNameCache.evict(decrementedCoffeeDTO.getName());
+            eventPublisher.publishEvent(new CoffeeStockChangedEvent(decrementedCoffeeDTO, -quantityToDecrement, StockMovementReason.DECREMENT));
+            return decrementedCoffeeDTO;
+        } finally {
+            coffeeStockHolds.release(id, quantityToDecrement);
+        }
+    }
+
+    /**
+     * Applies each increment to the ledger and reports it on its own, then persists
+     * the whole batch with one flush. Stock events are published only once that flush
+     * succeeds; if it fails, the increments applied in memory are undone and reported
+     * as failed, so a client retrying the batch does not count them twice. An undo goes
+     * through the same holds and bounds as any other change, so one that would take
+     * reserved units or room used meanwhile is not applied: its increment stays, to be
+     * saved with the ledger's next flush, and is reported as kept.
+     */
+    @MeteredOperation(CoffeeOperation.INCREMENT_ALL)
+    public List<CoffeeIncrementResultDTO> incrementAll(List<CoffeeIncrementDTO> increments) {
+        Set<Long> ids = increments.stream()
+                .filter(Objects::nonNull)
+                .map(CoffeeIncrementDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        coffeeStockLedger.preload(ids);
+        List<CoffeeIncrementResultDTO> results = new ArrayList<>(increments.size());
+        List<CoffeeDTO> incrementedCoffees = new ArrayList<>(increments.size());
+        try {
+            for (CoffeeIncrementDTO increment : increments) {
+                CoffeeDTO incrementedCoffeeDTO = applyIncrement(increment, results);
+                incrementedCoffees.add(incrementedCoffeeDTO);
+            }
+            coffeeStockLedger.flush(ids);
+        } catch (RuntimeException e) {
+            undoIncrements(increments, incrementedCoffees);
+            if (results.size() < increments.size()) {
+                throw e;
+            }
+            for (int i = 0; i < results.size(); i++) {
+                CoffeeIncrementResultDTO result = results.get(i);
+                if (!result.isSuccess()) {
+                    continue;
+                }
+                if (incrementedCoffees.get(i) == null) {
+                    result.setSuccess(false);
+                    result.setQuantity(null);
+                    result.setError("Stock changes of the batch could not be saved, this one was undone");
+                } else {
+                    result.setError("Stock changes of the batch could not be saved and this one could not be undone, it was kept");
+                }
+            }
+        }
+        publishIncrements(increments, incrementedCoffees);
+        return results;
+    }
+
+    private void publishIncrements(List<CoffeeIncrementDTO> increments, List<CoffeeDTO> incrementedCoffees) {
+        for (int i = 0; i < incrementedCoffees.size(); i++) {
+            CoffeeDTO incrementedCoffeeDTO = incrementedCoffees.get(i);
+            if (incrementedCoffeeDTO != null) {
+                coffeeNameCache.evict(incrementedCoffeeDTO.getName());
+                eventPublisher.publishEvent(new CoffeeStockChangedEvent(incrementedCoffeeDTO, increments.get(i).getQuantity(), StockMovementReason.INCREMENT));
+            }
+        }
+    }
+
+    private CoffeeDTO applyIncrement(CoffeeIncrementDTO increment, List<CoffeeIncrementResultDTO> results) {
+        if (increment == null) {
+            results.add(CoffeeIncrementResultDTO.builder().success(false).error("increment must not be null").build());
+            return null;
+        }
+        CoffeeIncrementResultDTO.CoffeeIncrementResultDTOBuilder result = CoffeeIncrementResultDTO.builder()
+                .id(increment.getId())
+                .quantityToIncrement(increment.getQuantity());
+        Set<ConstraintViolation<CoffeeIncrementDTO>> violations = validator.validate(increment);
+        if (!violations.isEmpty()) {
+            String error = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", "));
+            results.add(result.success(false).error(error).build());
+            return null;
+        }
+        try {
+            holdRemovedUnits(increment.getId(), increment.getQuantity());
+            try {
+                CoffeeDTO incrementedCoffeeDTO = coffeeStockLedger.increment(increment.getId(), increment.getQuantity());
+                results.add(result.success(true).quantity(incrementedCoffeeDTO.getQuantity()).build());
+                return incrementedCoffeeDTO;
+            } finally {
+                releaseRemovedUnits(increment.getId(), increment.getQuantity());
+            }
+        } catch (CoffeeNotFoundException | CoffeeStockExceededException e) {
+            results.add(result.success(false).error(e.getMessage()).build());
+            return null;
+        }
+    }
+
+    /**
+     * Undoes the applied increments and clears each one undone from the list, leaving
+     * only those that had to be kept.
+     */
+    private void undoIncrements(List<CoffeeIncrementDTO> increments, List<CoffeeDTO> incrementedCoffees) {
+        for (int i = 0; i < incrementedCoffees.size(); i++) {
+            if (incrementedCoffees.get(i) == null) {
+                continue;
+            }
+            CoffeeIncrementDTO increment = increments.get(i);
+            int quantityToUndo = -increment.getQuantity();
+            try {
+                holdRemovedUnits(increment.getId(), quantityToUndo);
+                try {
+                    coffeeStockLedger.increment(increment.getId(), quantityToUndo);
+                } finally {
+                    releaseRemovedUnits(increment.getId(), quantityToUndo);
+                }
+                incrementedCoffees.set(i, null);
+            } catch (CoffeeNotFoundException e) {
+                incrementedCoffees.set(i, null);
+            } catch (CoffeeStockExceededException e) {
+                log.error("Increment of {} units of coffee {} could not be undone after its batch failed to save, it was kept", increment.getQuantity(), increment.getId(), e);
+            }
+        }
+    }
+}
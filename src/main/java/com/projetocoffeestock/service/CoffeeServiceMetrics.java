@@ -0,0 +1,104 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.CoffeeTypeQuantity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for every CoffeeService operation. Timers and the counters for the
+ * expected outcomes are registered up front, so recording a call is a map lookup
+ * and a Micrometer update.
+ */
+@Component
+public class CoffeeServiceMetrics {
+
+    public static final String OPERATION_TIMER = "coffee.service.operation";
+    public static final String OUTCOME_COUNTER = "coffee.service.outcome";
+    public static final String STOCK_GAUGE = "coffee.stock.units";
+    public static final String NO_EXCEPTION = "none";
+
+    private static final List<Class<? extends Throwable>> EXPECTED_EXCEPTIONS = Arrays.asList(
+            CoffeeNotFoundException.class,
+            CoffeeStockExceededException.class,
+            CoffeeAlreadyRegisteredException.class,
+            CoffeeInsufficientStockException.class,
+            CoffeeVersionMismatchException.class);
+
+    private final MeterRegistry meterRegistry;
+    private final CoffeeRepository coffeeRepository;
+    private final Map<CoffeeOperation, Timer> timers = new EnumMap<>(CoffeeOperation.class);
+    private final Map<CoffeeOperation, Counter> successCounters = new EnumMap<>(CoffeeOperation.class);
+    private final Map<CoffeeOperation, Map<Class<?>, Counter>> failureCounters = new EnumMap<>(CoffeeOperation.class);
+    private final Map<CoffeeType, AtomicLong> unitsInStock = new EnumMap<>(CoffeeType.class);
+
+    @Autowired
+    public CoffeeServiceMetrics(MeterRegistry meterRegistry, CoffeeRepository coffeeRepository) {
+        this.meterRegistry = meterRegistry;
+        this.coffeeRepository = coffeeRepository;
+        for (CoffeeOperation operation : CoffeeOperation.values()) {
+            timers.put(operation, Timer.builder(OPERATION_TIMER)
+                    .tag("operation", operation.getTag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            successCounters.put(operation, outcomeCounter(operation, NO_EXCEPTION));
+            Map<Class<?>, Counter> countersByException = new ConcurrentHashMap<>();
+            EXPECTED_EXCEPTIONS.forEach(exception -> countersByException.put(exception, outcomeCounter(operation, exception.getSimpleName())));
+            failureCounters.put(operation, countersByException);
+        }
+        for (CoffeeType type : CoffeeType.values()) {
+            AtomicLong units = new AtomicLong();
+            unitsInStock.put(type, units);
+            Gauge.builder(STOCK_GAUGE, units, AtomicLong::get)
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public void record(CoffeeOperation operation, long startNanos, Throwable failure) {
+        timers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (failure == null) {
+            successCounters.get(operation).increment();
+        } else {
+            failureCounters.get(operation)
+                    .computeIfAbsent(failure.getClass(), exception -> outcomeCounter(operation, exception.getSimpleName()))
+                    .increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coffee.metrics.stock-refresh-interval-ms:15000}")
+    public void refreshUnitsInStock() {
+        Map<CoffeeType, Long> quantities = new EnumMap<>(CoffeeType.class);
+        for (CoffeeTypeQuantity typeQuantity : coffeeRepository.sumQuantityByType()) {
+            quantities.put(typeQuantity.getType(), typeQuantity.getQuantity());
+        }
+        unitsInStock.forEach((type, units) -> units.set(quantities.getOrDefault(type, 0L)));
+    }
+
+    private Counter outcomeCounter(CoffeeOperation operation, String exception) {
+        return Counter.builder(OUTCOME_COUNTER)
+                .tag("operation", operation.getTag())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
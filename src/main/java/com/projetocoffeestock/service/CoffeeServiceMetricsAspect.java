@@ -0,0 +1,30 @@
+package com.projetocoffeestock.service;
+
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeServiceMetricsAspect {
+
+    private final CoffeeServiceMetrics coffeeServiceMetrics;
+
+    @Around("@annotation(meteredOperation)")
+    public Object record(ProceedingJoinPoint joinPoint, MeteredOperation meteredOperation) throws Throwable {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            coffeeServiceMetrics.record(meteredOperation.value(), start, failure);
+        }
+    }
+}
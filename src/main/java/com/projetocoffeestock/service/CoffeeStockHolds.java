@@ -0,0 +1,93 @@
+package com.projetocoffeestock.service;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.CoffeeAvailabilityDTO;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Units of stock set aside per coffee, either by a reservation or by a decrement in
+ * flight. Each coffee has one CAS word holding the held units and a release counter:
+ * a hold is only granted against a quantity read after that word, and any release in
+ * between changes the word, so two holds can never both be granted the same units.
+ */
+@Component
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class CoffeeStockHolds {
+
+    private final CoffeeStockLedger coffeeStockLedger;
+    private final ConcurrentMap<Long, AtomicLong> holdsById = new ConcurrentHashMap<>();
+
+    public void hold(Long id, int quantity) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        AtomicLong holds = holdsById.get(id);
+        if (holds == null) {
+            coffeeStockLedger.current(id);
+            holds = holdsById.computeIfAbsent(id, key -> new AtomicLong());
+        }
+        while (true) {
+            long state = holds.get();
+            int stock = coffeeStockLedger.current(id).getQuantity();
+            int heldAfterHold = heldOf(state) + quantity;
+            if (heldAfterHold > stock) {
+                throw new CoffeeInsufficientStockException(id, quantity);
+            }
+            if (holds.compareAndSet(state, pack(heldAfterHold, releasesOf(state)))) {
+                return;
+            }
+        }
+    }
+
+    public void release(Long id, int quantity) {
+        AtomicLong holds = holdsById.get(id);
+        if (holds == null) {
+            return;
+        }
+        while (true) {
+            long state = holds.get();
+            if (holds.compareAndSet(state, pack(Math.max(0, heldOf(state) - quantity), releasesOf(state) + 1))) {
+                return;
+            }
+        }
+    }
+
+    public int heldOf(Long id) {
+        AtomicLong holds = holdsById.get(id);
+        return holds == null ? 0 : heldOf(holds.get());
+    }
+
+    public CoffeeAvailabilityDTO availabilityOf(Long id) throws CoffeeNotFoundException {
+        int held = heldOf(id);
+        int quantity = coffeeStockLedger.current(id).getQuantity();
+        return CoffeeAvailabilityDTO.builder()
+                .coffeeId(id)
+                .quantity(quantity)
+                .held(held)
+                .available(Math.max(0, quantity - held))
+                .build();
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        holdsById.remove(event.getCoffee().getId());
+    }
+
+    private static long pack(int held, int releases) {
+        return ((long) held << 32) | (releases & 0xFFFFFFFFL);
+    }
+
+    private static int heldOf(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int releasesOf(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,410 @@
+package com.projetocoffeestock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.StockChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory source of truth for coffee stock quantities on the increment path.
+ * Each coffee gets a slot whose quantity and number of changes are updated together
+ * with a single CAS, so the version reported for a quantity is always the one it was
+ * produced with. What was not persisted yet is the difference to the last flushed
+ * state, written back to the repository as one JDBC batch per flush.
+ *
+ * <p>Write-behind can be turned off, in which case every increment is a single
+ * conditional update. When it is on, the number of coffees with unflushed deltas
+ * and the time since the last flush are bounded: past either limit one request
+ * thread at a time writes a small batch of them inline, so the backlog shrinks
+ * without any single request paying for the whole of it.
+ */
+@Slf4j
+@Component
+public class CoffeeStockLedger {
+
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    private final CoffeeRepository coffeeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean writeBehind;
+    private final long maxLagNanos;
+    private final int maxPending;
+    private final int inlineFlushBatch;
+    private final boolean flushOnShutdown;
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+    private final ConcurrentMap<Long, StockSlot> slots = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushingInline = new AtomicBoolean();
+    private volatile long lastFlushNanos = System.nanoTime();
+
+    @Autowired
+    public CoffeeStockLedger(CoffeeRepository coffeeRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${coffee.stock.ledger.write-behind:true}") boolean writeBehind,
+                             @Value("${coffee.stock.ledger.max-lag-ms:1000}") long maxLagMillis,
+                             @Value("${coffee.stock.ledger.max-pending:10000}") int maxPending,
+                             @Value("${coffee.stock.ledger.inline-flush-batch:100}") int inlineFlushBatch,
+                             @Value("${coffee.stock.ledger.flush-on-shutdown:true}") boolean flushOnShutdown) {
+        this.coffeeRepository = coffeeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBehind = writeBehind;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        this.maxPending = maxPending;
+        this.inlineFlushBatch = inlineFlushBatch;
+        this.flushOnShutdown = flushOnShutdown;
+    }
+
+    public CoffeeDTO increment(Long id, int quantityToIncrement) throws CoffeeNotFoundException, CoffeeStockExceededException {
+        return writeBehind
+                ? incrementInMemory(id, quantityToIncrement, null)
+                : incrementThrough(id, quantityToIncrement, null);
+    }
+
+    public CoffeeDTO increment(Long id, int quantityToIncrement, long expectedVersion) throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeVersionMismatchException {
+        CoffeeDTO incrementedCoffeeDTO = writeBehind
+                ? incrementInMemory(id, quantityToIncrement, expectedVersion)
+                : incrementThrough(id, quantityToIncrement, expectedVersion);
+        if (incrementedCoffeeDTO == null) {
+            throw new CoffeeVersionMismatchException(id);
+        }
+        return incrementedCoffeeDTO;
+    }
+
+    private CoffeeDTO incrementInMemory(Long id, int quantityToIncrement, Long expectedVersion) throws CoffeeNotFoundException, CoffeeStockExceededException {
+        while (true) {
+            StockSlot slot = slotFor(id);
+            long state = slot.state.get();
+            int quantity = quantityOf(state);
+            if (quantity == RETIRED) {
+                continue;
+            }
+            if (expectedVersion != null && slot.versionOf(state) != expectedVersion) {
+                return null;
+            }
+            int quantityAfterIncrement = quantity + quantityToIncrement;
+            if (quantityAfterIncrement > slot.max || quantityAfterIncrement < 0) {
+                throw new CoffeeStockExceededException(id, quantityToIncrement);
+            }
+            long incrementedState = pack(quantityAfterIncrement, changesOf(state) + 1);
+            if (slot.state.compareAndSet(state, incrementedState)) {
+                markDirty(id);
+                flushIfBehind();
+                return slot.toDTO(incrementedState);
+            }
+        }
+    }
+
+    private CoffeeDTO incrementThrough(Long id, int quantityToIncrement, Long expectedVersion) throws CoffeeNotFoundException, CoffeeStockExceededException {
+        evict(id);
+        int updatedRows = expectedVersion == null
+                ? coffeeRepository.incrementQuantity(id, quantityToIncrement)
+                : coffeeRepository.incrementQuantity(id, quantityToIncrement, expectedVersion);
+        if (updatedRows == 0) {
+            if (!coffeeRepository.existsById(id)) {
+                throw new CoffeeNotFoundException(id);
+            }
+            if (expectedVersion != null && !coffeeRepository.existsByIdAndVersion(id, expectedVersion)) {
+                return null;
+            }
+            throw new CoffeeStockExceededException(id, quantityToIncrement);
+        }
+        return coffeeRepository.findById(id)
+                .map(coffeeMapper::toDTO)
+                .orElseThrow(() -> new CoffeeNotFoundException(id));
+    }
+
+    /**
+     * Takes stock out with the repository's conditional update, after writing any
+     * pending delta of the coffee so the database checks the whole quantity. The
+     * cached slot is then moved by the same amount, together with its persisted
+     * baseline, so the result needs no reload and the change is not written twice.
+     */
+    public CoffeeDTO decrement(Long id, int quantityToDecrement) throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        verifyDecrement(quantityToDecrement);
+        StockSlot slot = slots.get(id);
+        if (slot != null) {
+            flush(Collections.singleton(id));
+        }
+        if (coffeeRepository.decrementQuantity(id, quantityToDecrement) == 0) {
+            if (!coffeeRepository.existsById(id)) {
+                throw new CoffeeNotFoundException(id);
+            }
+            throw new CoffeeInsufficientStockException(id, quantityToDecrement);
+        }
+        if (slot != null && slots.get(id) == slot) {
+            long decrementedState = slot.applyPersistedChange(-quantityToDecrement);
+            if (quantityOf(decrementedState) != RETIRED) {
+                return slot.toDTO(decrementedState);
+            }
+        }
+        evict(id);
+        return current(id);
+    }
+
+    /**
+     * A decrement must take at least one unit: a negative one would add stock past the
+     * repository's guard without any max check, and a zero one would only bump the version.
+     */
+    static void verifyDecrement(int quantityToDecrement) {
+        if (quantityToDecrement <= 0) {
+            throw new IllegalArgumentException(String.format("Quantity to decrement must be positive but was %d.", quantityToDecrement));
+        }
+    }
+
+    public void applyTo(CoffeeDTO coffeeDTO) {
+        StockSlot slot = slots.get(coffeeDTO.getId());
+        if (slot != null) {
+            long state = slot.state.get();
+            if (quantityOf(state) != RETIRED) {
+                coffeeDTO.setQuantity(quantityOf(state));
+                coffeeDTO.setVersion(slot.versionOf(state));
+            }
+        }
+    }
+
+    public int quantityOf(Long id, int persistedQuantity) {
+        StockSlot slot = slots.get(id);
+        if (slot != null) {
+            int quantity = quantityOf(slot.state.get());
+            if (quantity != RETIRED) {
+                return quantity;
+            }
+        }
+        return persistedQuantity;
+    }
+
+    public CoffeeDTO current(Long id) throws CoffeeNotFoundException {
+        while (true) {
+            StockSlot slot = slotFor(id);
+            long state = slot.state.get();
+            if (quantityOf(state) != RETIRED) {
+                return slot.toDTO(state);
+            }
+        }
+    }
+
+    public void evict(Long id) {
+        flush(Collections.singleton(id));
+        StockSlot slot = slots.remove(id);
+        if (slot != null) {
+            StockChange pendingChange = retire(slot);
+            if (pendingChange != null) {
+                transactionTemplate.executeWithoutResult(status ->
+                        coffeeRepository.addToQuantities(Collections.singletonMap(id, pendingChange)));
+            }
+        }
+    }
+
+    public void preload(Collection<Long> ids) {
+        List<Long> missingIds = ids.stream()
+                .filter(id -> !slots.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missingIds.isEmpty()) {
+            coffeeRepository.findAllById(missingIds)
+                    .forEach(coffee -> slots.computeIfAbsent(coffee.getId(), key -> new StockSlot(coffee)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coffee.stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        lastFlushNanos = System.nanoTime();
+        flush(dirtyIds);
+    }
+
+    public void flush(Collection<Long> ids) {
+        Map<Long, StockChange> drainedChanges = drainPendingChanges(ids);
+        if (drainedChanges.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> coffeeRepository.addToQuantities(drainedChanges));
+        } catch (RuntimeException e) {
+            drainedChanges.forEach(this::restorePendingChange);
+            throw e;
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        if (flushOnShutdown) {
+            flush();
+        }
+    }
+
+    private StockSlot slotFor(Long id) throws CoffeeNotFoundException {
+        StockSlot slot = slots.get(id);
+        if (slot != null) {
+            return slot;
+        }
+        Coffee coffee = coffeeRepository.findById(id)
+                .orElseThrow(() -> new CoffeeNotFoundException(id));
+        return slots.computeIfAbsent(id, key -> new StockSlot(coffee));
+    }
+
+    private void markDirty(Long id) {
+        if (dirtyIds.add(id)) {
+            pendingCount.incrementAndGet();
+        }
+    }
+
+    private void flushIfBehind() {
+        if (pendingCount.get() < maxPending && System.nanoTime() - lastFlushNanos < maxLagNanos) {
+            return;
+        }
+        if (!flushingInline.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flush(dirtyIds.stream()
+                    .limit(inlineFlushBatch)
+                    .collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            log.warn("Inline flush of pending stock deltas failed, they will be retried", e);
+        } finally {
+            flushingInline.set(false);
+        }
+    }
+
+    private Map<Long, StockChange> drainPendingChanges(Collection<Long> ids) {
+        Map<Long, StockChange> drainedChanges = new HashMap<>();
+        for (Long id : ids) {
+            if (!dirtyIds.remove(id)) {
+                continue;
+            }
+            pendingCount.decrementAndGet();
+            StockSlot slot = slots.get(id);
+            if (slot == null) {
+                continue;
+            }
+            StockChange change = slot.takePendingChange();
+            if (change != null) {
+                drainedChanges.put(id, change);
+            }
+        }
+        return drainedChanges;
+    }
+
+    private void restorePendingChange(Long id, StockChange change) {
+        StockSlot slot = slots.get(id);
+        if (slot != null && slot.restorePendingChange(change)) {
+            markDirty(id);
+        }
+    }
+
+    private StockChange retire(StockSlot slot) {
+        return slot.pendingChangeOf(slot.state.getAndSet(pack(RETIRED, 0)));
+    }
+
+    private static long pack(int quantity, int changes) {
+        return ((long) quantity << 32) | (changes & 0xFFFFFFFFL);
+    }
+
+    private static int quantityOf(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int changesOf(long state) {
+        return (int) state;
+    }
+
+    private static final class StockSlot {
+
+        private final Long id;
+        private final String name;
+        private final String brand;
+        private final int max;
+        private final CoffeeType type;
+        private final long loadedVersion;
+        private final AtomicLong state;
+        private int persistedQuantity;
+        private int persistedChanges;
+
+        private StockSlot(Coffee coffee) {
+            this.id = coffee.getId();
+            this.name = coffee.getName();
+            this.brand = coffee.getBrand();
+            this.max = coffee.getMax();
+            this.type = coffee.getType();
+            this.loadedVersion = coffee.getVersion() == null ? 0 : coffee.getVersion();
+            this.state = new AtomicLong(pack(coffee.getQuantity(), 0));
+            this.persistedQuantity = coffee.getQuantity();
+        }
+
+        private long versionOf(long state) {
+            return loadedVersion + changesOf(state);
+        }
+
+        private CoffeeDTO toDTO(long state) {
+            return new CoffeeDTO(id, name, brand, max, quantityOf(state), type, versionOf(state));
+        }
+
+        private synchronized StockChange takePendingChange() {
+            long state = this.state.get();
+            if (quantityOf(state) == RETIRED) {
+                return null;
+            }
+            StockChange change = pendingChangeOf(state);
+            persistedQuantity = quantityOf(state);
+            persistedChanges = changesOf(state);
+            return change;
+        }
+
+        private synchronized StockChange pendingChangeOf(long state) {
+            int changes = changesOf(state) - persistedChanges;
+            return changes == 0 ? null : new StockChange(quantityOf(state) - persistedQuantity, changes);
+        }
+
+        private synchronized long applyPersistedChange(int quantity) {
+            while (true) {
+                long state = this.state.get();
+                if (quantityOf(state) == RETIRED) {
+                    return state;
+                }
+                long changedState = pack(quantityOf(state) + quantity, changesOf(state) + 1);
+                if (this.state.compareAndSet(state, changedState)) {
+                    persistedQuantity += quantity;
+                    persistedChanges++;
+                    return changedState;
+                }
+            }
+        }
+
+        private synchronized boolean restorePendingChange(StockChange change) {
+            if (quantityOf(state.get()) == RETIRED) {
+                return false;
+            }
+            persistedQuantity -= change.getQuantity();
+            persistedChanges -= change.getVersions();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.projetocoffeestock.service;
+
+import lombok.extern.slf4j.Slf4j;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stock of the most moved coffees in flat arrays, looked up by id or name through
+ * open-addressed indexes so a lookup neither boxes nor allocates. Quantity and the
+ * number of changes since the table was built share one word per coffee; the stock
+ * events move it forward and an event older than the word is dropped, so the table
+ * never goes back to an earlier version. The DTO served for a coffee is built once
+ * per version and reused until the next change.
+ *
+ * <p>The set of coffees is chosen when the table is built, at startup: the ones with
+ * the most stock movements first, then the lowest ids up to the capacity. Coffees
+ * created afterwards are served by the regular lookup path.
+ */
+@Slf4j
+@Component
+public class HotStockTable {
+
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    private final CoffeeRepository coffeeRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final CoffeeStockLedger coffeeStockLedger;
+    private final boolean enabled;
+    private final int capacity;
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+    private volatile Table table = new Table(new ArrayList<>());
+
+    @Autowired
+    public HotStockTable(CoffeeRepository coffeeRepository,
+                         StockMovementRepository stockMovementRepository,
+                         CoffeeStockLedger coffeeStockLedger,
+                         @Value("${coffee.stock.hot-table.enabled:false}") boolean enabled,
+                         @Value("${coffee.stock.hot-table.capacity:4096}") int capacity) {
+        this.coffeeRepository = coffeeRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.coffeeStockLedger = coffeeStockLedger;
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> ids = new LinkedHashSet<>(stockMovementRepository.findMostMovedCoffeeIds(PageRequest.of(0, capacity)));
+        if (ids.size() < capacity) {
+            coffeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, capacity))
+                    .stream()
+                    .limit(capacity - ids.size())
+                    .forEach(coffee -> ids.add(coffee.getId()));
+        }
+        List<Coffee> coffees = coffeeRepository.findAllById(ids);
+        table = new Table(coffees);
+        coffees.forEach(coffee -> {
+            CoffeeDTO coffeeDTO = coffeeMapper.toDTO(coffee);
+            coffeeStockLedger.applyTo(coffeeDTO);
+            update(coffeeDTO.getId(), coffeeDTO.getQuantity(), coffeeDTO.getVersion());
+        });
+        log.info("Hot stock table built with {} coffees", coffees.size());
+    }
+
+    public CoffeeDTO findByName(String name) {
+        Table current = table;
+        int slot = current.slotOf(name);
+        return slot < 0 ? null : current.view(slot);
+    }
+
+    public int size() {
+        return table.ids.length;
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        CoffeeDTO coffeeDTO = event.getCoffee();
+        update(coffeeDTO.getId(), coffeeDTO.getQuantity(), coffeeDTO.getVersion());
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        Table current = table;
+        int slot = current.slotOf(event.getCoffee().getId());
+        if (slot >= 0) {
+            current.state.set(slot, pack(RETIRED, 0));
+        }
+    }
+
+    private void update(long id, int quantity, Long version) {
+        Table current = table;
+        int slot = current.slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        while (true) {
+            long state = current.state.get(slot);
+            if (quantityOf(state) == RETIRED) {
+                return;
+            }
+            long updatedState;
+            if (version == null || version - current.baseVersions[slot] > Integer.MAX_VALUE) {
+                updatedState = pack(RETIRED, 0);
+            } else if (version - current.baseVersions[slot] > changesOf(state)) {
+                updatedState = pack(quantity, (int) (version - current.baseVersions[slot]));
+            } else {
+                return;
+            }
+            if (current.state.compareAndSet(slot, state, updatedState)) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(int quantity, int changes) {
+        return ((long) quantity << 32) | (changes & 0xFFFFFFFFL);
+    }
+
+    private static int quantityOf(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int changesOf(long state) {
+        return (int) state;
+    }
+
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static final class Table {
+
+        private final long[] ids;
+        private final String[] names;
+        private final String[] brands;
+        private final CoffeeType[] types;
+        private final int[] max;
+        private final long[] baseVersions;
+        private final AtomicLongArray state;
+        private final AtomicReferenceArray<CoffeeDTO> views;
+        private final long[] idKeys;
+        private final int[] idSlots;
+        private final String[] nameKeys;
+        private final int[] nameSlots;
+        private final int mask;
+
+        private Table(List<Coffee> coffees) {
+            int size = coffees.size();
+            ids = new long[size];
+            names = new String[size];
+            brands = new String[size];
+            types = new CoffeeType[size];
+            max = new int[size];
+            baseVersions = new long[size];
+            state = new AtomicLongArray(size);
+            views = new AtomicReferenceArray<>(size);
+            int buckets = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+            mask = buckets - 1;
+            idKeys = new long[buckets];
+            idSlots = new int[buckets];
+            nameKeys = new String[buckets];
+            nameSlots = new int[buckets];
+            for (int slot = 0; slot < size; slot++) {
+                Coffee coffee = coffees.get(slot);
+                ids[slot] = coffee.getId();
+                names[slot] = coffee.getName();
+                brands[slot] = coffee.getBrand();
+                types[slot] = coffee.getType();
+                max[slot] = coffee.getMax();
+                baseVersions[slot] = coffee.getVersion() == null ? 0 : coffee.getVersion();
+                state.set(slot, pack(coffee.getQuantity(), 0));
+                int idBucket = mix(Long.hashCode(ids[slot])) & mask;
+                while (idKeys[idBucket] != 0) {
+                    idBucket = (idBucket + 1) & mask;
+                }
+                idKeys[idBucket] = ids[slot];
+                idSlots[idBucket] = slot;
+                int nameBucket = mix(names[slot].hashCode()) & mask;
+                while (nameKeys[nameBucket] != null) {
+                    nameBucket = (nameBucket + 1) & mask;
+                }
+                nameKeys[nameBucket] = names[slot];
+                nameSlots[nameBucket] = slot;
+            }
+        }
+
+        private int slotOf(long id) {
+            for (int bucket = mix(Long.hashCode(id)) & mask; idKeys[bucket] != 0; bucket = (bucket + 1) & mask) {
+                if (idKeys[bucket] == id) {
+                    return idSlots[bucket];
+                }
+            }
+            return -1;
+        }
+
+        private int slotOf(String name) {
+            for (int bucket = mix(name.hashCode()) & mask; nameKeys[bucket] != null; bucket = (bucket + 1) & mask) {
+                if (nameKeys[bucket].equals(name)) {
+                    return nameSlots[bucket];
+                }
+            }
+            return -1;
+        }
+
+        private CoffeeDTO view(int slot) {
+            long current = state.get(slot);
+            int quantity = quantityOf(current);
+            if (quantity == RETIRED) {
+                return null;
+            }
+            long version = baseVersions[slot] + changesOf(current);
+            CoffeeDTO view = views.get(slot);
+            if (view != null && view.getQuantity() == quantity && view.getVersion() == version) {
+                return view;
+            }
+            view = new CoffeeDTO(ids[slot], names[slot], brands[slot], max[slot], quantity, types[slot], version);
+            views.set(slot, view);
+            return view;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.LowStockAlertDTO;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.event.LowStockAlertEvent;
+import com.projetocoffeestock.event.LowStockThresholdChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-evaluates the low-stock threshold of the single coffee touched by each stock
+ * change and publishes a {@link LowStockAlertEvent} only when the coffee crosses
+ * it, in either direction. Thresholds are a percentage of the coffee's max: a
+ * per-coffee override wins over a per-type one, which wins over the default.
+ *
+ * <p>Listeners can see the changes of a coffee out of order, so the state kept per
+ * coffee remembers the version it was computed from and an event carrying an older
+ * version than that is ignored instead of flipping the state back.
+ */
+@Component
+public class LowStockWatcher {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultPercent;
+    private final Map<CoffeeType, Integer> percentByType = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> percentByCoffee = new ConcurrentHashMap<>();
+    private final Map<Long, LowStockState> lowById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LowStockWatcher(ApplicationEventPublisher eventPublisher,
+                           @Value("${coffee.alerts.low-stock.default-percent:10}") int defaultPercent) {
+        this.eventPublisher = eventPublisher;
+        this.defaultPercent = defaultPercent;
+    }
+
+    public void setTypeThreshold(CoffeeType type, int percent) {
+        percentByType.put(type, percent);
+        eventPublisher.publishEvent(new LowStockThresholdChangedEvent(type, null));
+    }
+
+    public void setCoffeeThreshold(Long id, int percent) {
+        percentByCoffee.put(id, percent);
+        eventPublisher.publishEvent(new LowStockThresholdChangedEvent(null, id));
+    }
+
+    public int thresholdFor(CoffeeDTO coffeeDTO) {
+        return thresholdFor(coffeeDTO.getId(), coffeeDTO.getType());
+    }
+
+    public int thresholdFor(Long id, CoffeeType type) {
+        Integer percent = percentByCoffee.get(id);
+        if (percent == null) {
+            percent = percentByType.getOrDefault(type, defaultPercent);
+        }
+        return percent;
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        CoffeeDTO coffeeDTO = event.getCoffee();
+        int thresholdPercent = thresholdFor(coffeeDTO);
+        boolean low = (long) coffeeDTO.getQuantity() * 100 <= (long) thresholdPercent * coffeeDTO.getMax();
+        LowStockState state = new LowStockState(coffeeDTO.getVersion(), low);
+        LowStockState[] previous = new LowStockState[1];
+        LowStockState current = lowById.compute(coffeeDTO.getId(), (id, recorded) -> {
+            previous[0] = recorded;
+            return recorded != null && recorded.isNewerThan(state) ? recorded : state;
+        });
+        if (current != state) {
+            return;
+        }
+        if (previous[0] == null ? low : previous[0].low != low) {
+            eventPublisher.publishEvent(new LowStockAlertEvent(LowStockAlertDTO.builder()
+                    .id(coffeeDTO.getId())
+                    .name(coffeeDTO.getName())
+                    .type(coffeeDTO.getType())
+                    .max(coffeeDTO.getMax())
+                    .quantity(coffeeDTO.getQuantity())
+                    .thresholdPercent(thresholdPercent)
+                    .low(low)
+                    .version(coffeeDTO.getVersion())
+                    .build()));
+        }
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        lowById.remove(event.getCoffee().getId());
+        percentByCoffee.remove(event.getCoffee().getId());
+    }
+
+    private static final class LowStockState {
+
+        private final Long version;
+        private final boolean low;
+
+        private LowStockState(Long version, boolean low) {
+            this.version = version;
+            this.low = low;
+        }
+
+        private boolean isNewerThan(LowStockState other) {
+            return version != null && other.version != null && version > other.version;
+        }
+    }
+}
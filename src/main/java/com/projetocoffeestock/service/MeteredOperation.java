@@ -0,0 +1,17 @@
+package com.projetocoffeestock.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a CoffeeService method whose calls are timed and counted by outcome under
+ * the given operation. Only calls made through the Spring proxy are recorded.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MeteredOperation {
+
+    CoffeeOperation value();
+}
@@ -0,0 +1,199 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.StockAnalyticsDTO;
+import com.projetocoffeestock.dto.StockGroupDTO;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.event.LowStockThresholdChangedEvent;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Stock totals by type and by brand, kept up to date from the stock events instead
+ * of being recomputed. Each change moves a single coffee's contribution between
+ * the counters, so reading the analytics costs the same whatever the catalog size.
+ * The catalog is read once at startup to seed the counters. Whether a coffee counts
+ * as low depends on its threshold, so a threshold change moves the coffees it
+ * applies to between the counters again.
+ *
+ * <p>The warm-up can run while requests are already served, so it may read a coffee
+ * whose creation event has not arrived yet. A creation event therefore sets the
+ * coffee's quantity rather than adding its delta to the seeded one.
+ */
+@Component
+public class StockAnalytics {
+
+    private final CoffeeRepository coffeeRepository;
+    private final LowStockWatcher lowStockWatcher;
+    private final CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+    private final ConcurrentMap<Long, CoffeeStock> stockById = new ConcurrentHashMap<>();
+    private final StockGroup total = new StockGroup();
+    private final Map<CoffeeType, StockGroup> byType = new EnumMap<>(CoffeeType.class);
+    private final ConcurrentMap<String, StockGroup> byBrand = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockAnalytics(CoffeeRepository coffeeRepository, LowStockWatcher lowStockWatcher) {
+        this.coffeeRepository = coffeeRepository;
+        this.lowStockWatcher = lowStockWatcher;
+        for (CoffeeType type : CoffeeType.values()) {
+            byType.put(type, new StockGroup());
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void warmUp() {
+        coffeeRepository.findAll().forEach(coffee -> {
+            CoffeeDTO coffeeDTO = coffeeMapper.toDTO(coffee);
+            stockById.computeIfAbsent(coffeeDTO.getId(), id -> {
+                CoffeeStock stock = stockOf(coffeeDTO, coffeeDTO.getQuantity());
+                contribute(stock, 1);
+                return stock;
+            });
+        });
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        CoffeeDTO coffeeDTO = event.getCoffee();
+        stockById.compute(coffeeDTO.getId(), (id, previous) -> {
+            long quantity = coffeeDTO.getQuantity();
+            if (previous != null) {
+                contribute(previous, -1);
+                if (event.getReason() != StockMovementReason.CREATED) {
+                    quantity = previous.quantity + event.getDelta();
+                }
+            }
+            CoffeeStock stock = stockOf(coffeeDTO, quantity);
+            contribute(stock, 1);
+            return stock;
+        });
+    }
+
+    @EventListener
+    public void onThresholdChanged(LowStockThresholdChangedEvent event) {
+        if (event.getCoffeeId() != null) {
+            reevaluate(event.getCoffeeId());
+            return;
+        }
+        stockById.forEach((id, stock) -> {
+            if (stock.type == event.getType()) {
+                reevaluate(id);
+            }
+        });
+    }
+
+    private void reevaluate(Long id) {
+        stockById.computeIfPresent(id, (key, previous) -> {
+            CoffeeStock stock = new CoffeeStock(previous.type, previous.brand, previous.max, previous.quantity,
+                    isLow(id, previous.type, previous.max, previous.quantity), previous.full);
+            contribute(previous, -1);
+            contribute(stock, 1);
+            return stock;
+        });
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        stockById.computeIfPresent(event.getCoffee().getId(), (id, previous) -> {
+            contribute(previous, -1);
+            return null;
+        });
+    }
+
+    public StockAnalyticsDTO snapshot() {
+        List<StockGroupDTO> types = byType.entrySet().stream()
+                .map(entry -> entry.getValue().toDTO(entry.getKey().name()))
+                .filter(group -> group.getCoffees() > 0)
+                .collect(Collectors.toList());
+        List<StockGroupDTO> brands = byBrand.entrySet().stream()
+                .map(entry -> entry.getValue().toDTO(entry.getKey()))
+                .filter(group -> group.getCoffees() > 0)
+                .sorted((left, right) -> left.getGroup().compareTo(right.getGroup()))
+                .collect(Collectors.toList());
+        return new StockAnalyticsDTO(total.toDTO("total"), types, brands);
+    }
+
+    private CoffeeStock stockOf(CoffeeDTO coffeeDTO, long quantity) {
+        boolean low = isLow(coffeeDTO.getId(), coffeeDTO.getType(), coffeeDTO.getMax(), quantity);
+        return new CoffeeStock(coffeeDTO.getType(), coffeeDTO.getBrand(), coffeeDTO.getMax(), quantity, low, quantity >= coffeeDTO.getMax());
+    }
+
+    private boolean isLow(Long id, CoffeeType type, int max, long quantity) {
+        return quantity * 100 <= (long) lowStockWatcher.thresholdFor(id, type) * max;
+    }
+
+    private void contribute(CoffeeStock stock, int sign) {
+        total.add(stock, sign);
+        byType.get(stock.type).add(stock, sign);
+        byBrand.computeIfAbsent(stock.brand, brand -> new StockGroup()).add(stock, sign);
+    }
+
+    private static final class CoffeeStock {
+
+        private final CoffeeType type;
+        private final String brand;
+        private final int max;
+        private final long quantity;
+        private final boolean low;
+        private final boolean full;
+
+        private CoffeeStock(CoffeeType type, String brand, int max, long quantity, boolean low, boolean full) {
+            this.type = type;
+            this.brand = brand;
+            this.max = max;
+            this.quantity = quantity;
+            this.low = low;
+            this.full = full;
+        }
+    }
+
+    private static final class StockGroup {
+
+        private final LongAdder coffees = new LongAdder();
+        private final LongAdder quantity = new LongAdder();
+        private final LongAdder max = new LongAdder();
+        private final LongAdder lowItems = new LongAdder();
+        private final LongAdder fullItems = new LongAdder();
+
+        private void add(CoffeeStock stock, int sign) {
+            coffees.add(sign);
+            quantity.add(sign * stock.quantity);
+            max.add(sign * stock.max);
+            if (stock.low) {
+                lowItems.add(sign);
+            }
+            if (stock.full) {
+                fullItems.add(sign);
+            }
+        }
+
+        private StockGroupDTO toDTO(String group) {
+            long groupQuantity = quantity.sum();
+            long groupMax = max.sum();
+            return StockGroupDTO.builder()
+                    .group(group)
+                    .coffees(coffees.sum())
+                    .quantity(groupQuantity)
+                    .max(groupMax)
+                    .utilization(groupMax == 0 ? 0 : (double) groupQuantity / groupMax)
+                    .lowItems(lowItems.sum())
+                    .fullItems(fullItems.sum())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.projetocoffeestock.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.StockMovement;
+import com.projetocoffeestock.entity.StockSnapshot;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import com.projetocoffeestock.repository.StockSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Appends every stock change to the movement log. Movements are queued by the
+ * request thread and inserted as one batch per flush, so the log never adds a row
+ * update to the stock path. Every {@code snapshot-every} movements of a coffee a
+ * snapshot of its quantity is written next to them, which bounds how much of the
+ * log has to be summed to rebuild a quantity.
+ *
+ * <p>A full queue is handed to a background flusher rather than flushed by the
+ * request thread that filled it. While the database is unavailable failed batches
+ * are kept for the next flush, up to the queue capacity; past that the oldest
+ * movements are dropped and logged.
+ *
+ * <p>A coffee with no snapshot yet gets an opening one: the quantity it had before
+ * the movements being flushed, taken from the ledger minus their deltas, so it does
+ * not depend on the order in which concurrent changes were queued.
+ */
+@Slf4j
+@Component
+public class StockMovementRecorder {
+
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final CoffeeStockLedger coffeeStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final int queueCapacity;
+    private final int snapshotEvery;
+    private final Queue<PendingMovement> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Map<Long, RunningStock> runningById = new HashMap<>();
+    private final Deque<PendingMovement> retry = new ArrayDeque<>();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-movement-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public StockMovementRecorder(StockMovementRepository stockMovementRepository,
+                                 StockSnapshotRepository stockSnapshotRepository,
+                                 CoffeeStockLedger coffeeStockLedger,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${coffee.movements.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${coffee.movements.snapshot-every:100}") int snapshotEvery) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.coffeeStockLedger = coffeeStockLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.queueCapacity = queueCapacity;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    @EventListener
+    public void onStockChanged(CoffeeStockChangedEvent event) {
+        record(event.getCoffee().getId(), event.getCoffee().getVersion(), event.getDelta(), event.getReason());
+    }
+
+    @EventListener
+    public void onDeleted(CoffeeDeletedEvent event) {
+        int quantity = event.getCoffee().getQuantity();
+        record(event.getCoffee().getId(), event.getCoffee().getVersion(), -quantity, StockMovementReason.DELETED);
+    }
+
+    private void record(Long coffeeId, Long version, int delta, StockMovementReason reason) {
+        queue.add(new PendingMovement(new StockMovement(null, coffeeId, delta, reason, Instant.now()), version));
+        if (queued.incrementAndGet() >= queueCapacity && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushFullQueue);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushFullQueue() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Flush of a full stock movement queue failed, it will be retried", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coffee.movements.flush-interval-ms:500}")
+    public synchronized void flush() {
+        List<PendingMovement> pending = new ArrayList<>(retry);
+        retry.clear();
+        PendingMovement next;
+        while ((next = queue.poll()) != null) {
+            queued.decrementAndGet();
+            pending.add(next);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, RunningStock> touched = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> append(pending, touched));
+            runningById.putAll(touched);
+            pending.stream()
+                    .map(PendingMovement::getMovement)
+                    .filter(movement -> movement.getReason() == StockMovementReason.DELETED)
+                    .forEach(movement -> runningById.remove(movement.getCoffeeId()));
+        } catch (RuntimeException e) {
+            pending.forEach(failed -> failed.getMovement().setId(null));
+            retry.addAll(pending);
+            dropOverflow();
+            throw e;
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void dropOverflow() {
+        int dropped = 0;
+        while (retry.size() > queueCapacity) {
+            runningById.remove(retry.poll().getMovement().getCoffeeId());
+            dropped++;
+        }
+        if (dropped > 0) {
+            log.error("Dropped {} stock movements that could not be written, the movement log is missing them", dropped);
+        }
+    }
+
+    private void append(List<PendingMovement> pending, Map<Long, RunningStock> touched) {
+        List<StockSnapshot> snapshots = new ArrayList<>();
+        List<StockMovement> movements = new ArrayList<>(pending.size());
+        Instant now = Instant.now();
+        for (PendingMovement next : pending) {
+            StockMovement movement = next.getMovement();
+            RunningStock running = touched.computeIfAbsent(movement.getCoffeeId(), coffeeId -> runningFor(coffeeId, pending, snapshots, now));
+            running.quantity += movement.getDelta();
+            running.sinceSnapshot++;
+            movements.add(movement);
+        }
+        stockMovementRepository.saveAll(movements);
+        Map<Long, Long> lastMovementIds = new HashMap<>();
+        movements.forEach(movement -> lastMovementIds.put(movement.getCoffeeId(), movement.getId()));
+        touched.forEach((coffeeId, running) -> {
+            if (running.sinceSnapshot >= snapshotEvery) {
+                snapshots.add(new StockSnapshot(null, coffeeId, lastMovementIds.get(coffeeId), running.quantity, now));
+                running.sinceSnapshot = 0;
+            }
+        });
+        stockSnapshotRepository.saveAll(snapshots);
+    }
+
+    private RunningStock runningFor(Long coffeeId, List<PendingMovement> pending, List<StockSnapshot> snapshots, Instant now) {
+        RunningStock running = runningById.get(coffeeId);
+        if (running != null) {
+            return running.copy();
+        }
+        return stockSnapshotRepository.findTopByCoffeeIdOrderByLastMovementIdDesc(coffeeId)
+                .map(snapshot -> new RunningStock(snapshot.getQuantity()
+                        + stockMovementRepository.sumDeltas(coffeeId, snapshot.getLastMovementId(), Long.MAX_VALUE), snapshotEvery))
+                .orElseGet(() -> {
+                    long opening = openingOf(coffeeId, pending);
+                    snapshots.add(new StockSnapshot(null, coffeeId, 0L, opening, now));
+                    return new RunningStock(opening, 0);
+                });
+    }
+
+    private long openingOf(Long coffeeId, List<PendingMovement> pending) {
+        List<PendingMovement> movementsOfCoffee = pending.stream()
+                .filter(next -> next.getMovement().getCoffeeId().equals(coffeeId))
+                .collect(Collectors.toList());
+        if (movementsOfCoffee.stream().anyMatch(next -> next.getMovement().getReason() == StockMovementReason.CREATED)) {
+            return 0;
+        }
+        CoffeeDTO current = null;
+        if (movementsOfCoffee.stream().noneMatch(next -> next.getMovement().getReason() == StockMovementReason.DELETED)) {
+            try {
+                current = coffeeStockLedger.current(coffeeId);
+            } catch (CoffeeNotFoundException e) {
+                log.warn("Coffee {} is gone, its opening stock is taken as zero after its movements", coffeeId);
+            }
+        }
+        long quantity = current == null ? 0 : current.getQuantity();
+        Long version = current == null ? null : current.getVersion();
+        return quantity - movementsOfCoffee.stream()
+                .filter(next -> version == null || next.getVersion() == null || next.getVersion() <= version)
+                .mapToLong(next -> next.getMovement().getDelta())
+                .sum();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class PendingMovement {
+
+        private final StockMovement movement;
+        private final Long version;
+    }
+
+    private static final class RunningStock {
+
+        private long quantity;
+        private int sinceSnapshot;
+
+        private RunningStock(long quantity, int sinceSnapshot) {
+            this.quantity = quantity;
+            this.sinceSnapshot = sinceSnapshot;
+        }
+
+        private RunningStock copy() {
+            return new RunningStock(quantity, sinceSnapshot);
+        }
+    }
+}
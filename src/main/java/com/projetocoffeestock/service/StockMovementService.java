@@ -0,0 +1,50 @@
+package com.projetocoffeestock.service;
+
+import lombok.AllArgsConstructor;
+import com.projetocoffeestock.dto.StockMovementDTO;
+import com.projetocoffeestock.dto.StockMovementPageDTO;
+import com.projetocoffeestock.entity.StockMovement;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import com.projetocoffeestock.repository.StockSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockMovementService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+
+    public long quantityAt(Long coffeeId, long movementId) {
+        return stockSnapshotRepository.findTopByCoffeeIdAndLastMovementIdLessThanEqualOrderByLastMovementIdDesc(coffeeId, movementId)
+                .map(snapshot -> snapshot.getQuantity() + stockMovementRepository.sumDeltas(coffeeId, snapshot.getLastMovementId(), movementId))
+                .orElse(0L);
+    }
+
+    public StockMovementPageDTO history(Long coffeeId, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long from = afterId == null ? 0L : afterId;
+        List<StockMovement> movements = stockMovementRepository.findByCoffeeIdAndIdGreaterThanOrderByIdAsc(coffeeId, from, PageRequest.of(0, pageSize));
+        long quantity = quantityAt(coffeeId, from);
+        List<StockMovementDTO> content = new ArrayList<>(movements.size());
+        for (StockMovement movement : movements) {
+            quantity += movement.getDelta();
+            content.add(StockMovementDTO.builder()
+                    .id(movement.getId())
+                    .delta(movement.getDelta())
+                    .reason(movement.getReason())
+                    .createdAt(movement.getCreatedAt())
+                    .quantityAfter(quantity)
+                    .build());
+        }
+        Long nextAfterId = content.size() == pageSize ? content.get(content.size() - 1).getId() : null;
+        return new StockMovementPageDTO(content, nextAfterId);
+    }
+}
@@ -35,7 +35,8 @@ public class CoffeeDTOBuilder {
                 brand,
                 max,
                 quantity,
-                type);
+                type,
+                null);
     }
 }
 
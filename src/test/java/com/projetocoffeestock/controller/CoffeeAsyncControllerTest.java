@@ -0,0 +1,113 @@
+package com.projetocoffeestock.controller;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.service.CoffeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeAsyncControllerTest {
+
+    private static final String COFFEE_ASYNC_API_URL_PATH = "/api/v1/async/coffees";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private CoffeeService coffeeService;
+
+    private CoffeeRequestExecutor coffeeRequestExecutor;
+
+    @BeforeEach
+    void setUp() {
+        coffeeRequestExecutor = new CoffeeRequestExecutor(new SimpleMeterRegistry(), 1, 1);
+        mockMvc = MockMvcBuilders.standaloneSetup(new CoffeeAsyncController(coffeeService, coffeeRequestExecutor)).build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coffeeRequestExecutor.shutdown();
+    }
+
+    @Test
+    void whenGETIsCalledWithValidNameThenOkStatusIsReturned() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        // when
+        when(coffeeService.findByName(coffeeDTO.getName())).thenReturn(coffeeDTO);
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(get(COFFEE_ASYNC_API_URL_PATH + "/" + coffeeDTO.getName())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(coffeeDTO.getName())))
+                .andExpect(jsonPath("$.quantity", is(coffeeDTO.getQuantity())));
+    }
+
+    @Test
+    void whenGETIsCalledWithoutRegisteredNameThenNotFoundStatusIsReturned() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        // when
+        when(coffeeService.findByName(coffeeDTO.getName())).thenThrow(CoffeeNotFoundException.class);
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(get(COFFEE_ASYNC_API_URL_PATH + "/" + coffeeDTO.getName())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenThePoolAndQueueAreFullThenServiceUnavailableStatusIsReturned() throws Exception {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        coffeeRequestExecutor.submit(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await();
+        coffeeRequestExecutor.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(get(COFFEE_ASYNC_API_URL_PATH)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isServiceUnavailable());
+        release.countDown();
+    }
+}
@@ -1,34 +1,73 @@
 package com.projetocoffeestock.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projetocoffeestock.builder.CoffeeDTOBuilder;
 import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeImportResultDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementResultDTO;
+import com.projetocoffeestock.dto.CoffeePageDTO;
+import com.projetocoffeestock.dto.CoffeeSearchDTO;
+import com.projetocoffeestock.dto.CoffeeSearchPageDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryPageDTO;
 import com.projetocoffeestock.dto.QuantityDTO;
+import com.projetocoffeestock.dto.StockMovementDTO;
+import com.projetocoffeestock.dto.StockMovementPageDTO;
+import com.projetocoffeestock.enums.CoffeeSortField;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
 import com.projetocoffeestock.exception.CoffeeNotFoundException;
 import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import com.projetocoffeestock.service.CoffeeCatalogVersion;
+import com.projetocoffeestock.service.CoffeeIdempotencyStore;
+import com.projetocoffeestock.service.CoffeeImportService;
 import com.projetocoffeestock.service.CoffeeService;
+import com.projetocoffeestock.service.StockMovementService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static com.projetocoffeestock.utils.JsonConvertionUtils.asJsonString;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.mock.http.server.reactive.MockServerHttpRequest.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,12 +78,28 @@ public class CoffeeControllerTest {
     private static final long INVALID_COFFEE_ID = 2l;
     private static final String COFFEE_API_SUBPATH_INCREMENT_URL = "/increment";
     private static final String COFFEE_API_SUBPATH_DECREMENT_URL = "/decrement";
+    private static final String COFFEE_API_SUBPATH_INCREMENTS_URL = "/increments";
 
     private MockMvc mockMvc;
 
     @Mock
     private CoffeeService coffeeService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private CoffeeImportService coffeeImportService;
+
+    @Mock
+    private StockMovementService stockMovementService;
+
+    @Mock
+    private CoffeeCatalogVersion coffeeCatalogVersion;
+
+    @Spy
+    private CoffeeIdempotencyStore coffeeIdempotencyStore = new CoffeeIdempotencyStore(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private CoffeeController coffeeController;
 
@@ -104,6 +159,34 @@ public class CoffeeControllerTest {
                 .andExpect(jsonPath("$.type", is(coffeeDTO.getType().toString())));
     }
 
+    @Test
+    void whenGETIsCalledWithTheCurrentETagThenNotModifiedStatusIsReturned() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        coffeeDTO.setVersion(7L);
+
+        //when
+        when(coffeeService.findByName(coffeeDTO.getName())).thenReturn(coffeeDTO);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH + "/" + coffeeDTO.getName())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1.7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void whenGETListIsCalledWithTheCurrentCatalogETagThenTheListIsNotLoaded() throws Exception {
+        //when
+        when(coffeeCatalogVersion.current()).thenReturn("42.3");
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"42.3\""))
+                .andExpect(status().isNotModified());
+        verify(coffeeService, never()).listAll();
+    }
+
     @Test
     void whenGETIsCalledWithoutRegisteredNameThenNotFoundStatusIsReturned() throws Exception {
         // given
@@ -149,6 +232,144 @@ public class CoffeeControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGETSummaryViewIsCalledThenOnlySummariesAreReturned() throws Exception {
+        // given
+        CoffeeSummaryDTO summaryDTO = new CoffeeSummaryDTO(VALID_COFFEE_ID, "Melitta", CoffeeType.STAMONICA, 10);
+
+        //when
+        when(coffeeService.listSummaries()).thenReturn(Collections.singletonList(summaryDTO));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH)
+                        .param("view", "summary")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Melitta")))
+                .andExpect(jsonPath("$[0].quantity", is(10)))
+                .andExpect(jsonPath("$[0].brand").doesNotExist());
+    }
+
+    @Test
+    void whenGETPageIsCalledThenCoffeesAndNextCursorAreReturned() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeePageDTO coffeePageDTO = new CoffeePageDTO(Collections.singletonList(coffeeDTO), coffeeDTO.getId());
+
+        //when
+        when(coffeeService.listPage(null, 1)).thenReturn(coffeePageDTO);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH)
+                        .param("size", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is(coffeeDTO.getName())))
+                .andExpect(jsonPath("$.nextAfterId", is(coffeeDTO.getId().intValue())));
+    }
+
+    @Test
+    void whenGETSummaryViewIsCalledWithASizeThenAPageOfSummariesIsReturned() throws Exception {
+        // given
+        CoffeeSummaryDTO summaryDTO = new CoffeeSummaryDTO(VALID_COFFEE_ID, "Melitta", CoffeeType.STAMONICA, 10);
+        CoffeeSummaryPageDTO summaryPageDTO = new CoffeeSummaryPageDTO(Collections.singletonList(summaryDTO), null);
+
+        //when
+        when(coffeeService.listSummaryPage(null, 10)).thenReturn(summaryPageDTO);
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH)
+                        .param("view", "summary")
+                        .param("size", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is("Melitta")))
+                .andExpect(jsonPath("$.content[0].brand").doesNotExist());
+        verify(coffeeService, never()).listPage(null, 10);
+    }
+
+    @Test
+    void whenGETSearchIsCalledThenFiltersAreBoundAndMatchingPageIsReturned() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeSearchDTO expectedSearch = CoffeeSearchDTO.builder()
+                .type(coffeeDTO.getType())
+                .brand("Mel")
+                .maxFillPercent(20)
+                .sort(CoffeeSortField.QUANTITY)
+                .direction(Sort.Direction.DESC)
+                .size(10)
+                .build();
+
+        //when
+        when(coffeeService.search(expectedSearch)).thenReturn(new CoffeeSearchPageDTO(Collections.singletonList(coffeeDTO), "cursor"));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH + "/search")
+                        .param("type", coffeeDTO.getType().name())
+                        .param("brand", "Mel")
+                        .param("maxFillPercent", "20")
+                        .param("sort", "QUANTITY")
+                        .param("direction", "DESC")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name", is(coffeeDTO.getName())))
+                .andExpect(jsonPath("$.nextCursor", is("cursor")));
+    }
+
+    @Test
+    void whenGETSearchIsCalledWithFillPercentAboveHundredThenBadRequestStatusIsReturned() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH + "/search")
+                        .param("minFillPercent", "150"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGETIsCalledAcceptingNdjsonThenCoffeesAreStreamedOnePerLine() throws Exception {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        //when
+        doAnswer(invocation -> {
+            Consumer<CoffeeDTO> consumer = invocation.getArgument(0);
+            consumer.accept(coffeeDTO);
+            consumer.accept(coffeeDTO);
+            return null;
+        }).when(coffeeService).streamAll(any());
+
+        // then
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH)
+                        .accept(CoffeeController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = asJsonString(coffeeDTO) + "\n";
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(line + line));
+    }
+
+    @Test
+    void whenPOSTIsCalledWithACsvUploadThenTheImportResultIsReturned() throws Exception {
+        // given
+        String csv = "name,brand,max,quantity,type\nMelitta,Fazenda Sta Monica,50,10,STAMONICA\n";
+        CoffeeImportResultDTO importResultDTO = CoffeeImportResultDTO.builder()
+                .imported(1)
+                .errors(Collections.emptyList())
+                .build();
+
+        // when
+        when(coffeeImportService.importCsv(any())).thenReturn(importResultDTO);
+
+        // then
+        mockMvc.perform(post(COFFEE_API_URL_PATH + "/import")
+                        .contentType(CoffeeController.TEXT_CSV_VALUE)
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+    }
+
     @Test
     void whenDELETEIsCalledWithValidIdThenNoContentStatusIsReturned() throws Exception {
         // given
@@ -193,4 +414,178 @@ public class CoffeeControllerTest {
                 .andExpect(jsonPath("$.type", is(coffeeDTO.getType().toString())))
                 .andExpect(jsonPath("$.quantity", is(coffeeDTO.getQuantity())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenPATCHIsRetriedWithTheSameIdempotencyKeyThenIncrementRunsOnce() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        coffeeDTO.setQuantity(coffeeDTO.getQuantity() + quantityDTO.getQuantity());
+
+        when(coffeeService.increment(VALID_COFFEE_ID, quantityDTO.getQuantity())).thenReturn(coffeeDTO);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_INCREMENT_URL)
+                            .header(CoffeeController.IDEMPOTENCY_KEY, "retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(quantityDTO))).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity", is(coffeeDTO.getQuantity())));
+        }
+        verify(coffeeService, times(1)).increment(VALID_COFFEE_ID, quantityDTO.getQuantity());
+    }
+
+    @Test
+    void whenIdempotencyKeyIsReusedForADifferentRequestThenUnprocessableEntityStatusIsReturned() throws Exception {
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        when(coffeeService.createCoffee(coffeeDTO)).thenReturn(coffeeDTO);
+
+        mockMvc.perform(post(COFFEE_API_URL_PATH)
+                        .header(CoffeeController.IDEMPOTENCY_KEY, "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(coffeeDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_INCREMENT_URL)
+                        .header(CoffeeController.IDEMPOTENCY_KEY, "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(QuantityDTO.builder().quantity(10).build())))
+                .andExpect(status().isUnprocessableEntity());
+        verify(coffeeService, never()).increment(VALID_COFFEE_ID, 10);
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementWithAStaleETagThenPreconditionFailedStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+
+        when(coffeeService.increment(VALID_COFFEE_ID, quantityDTO.getQuantity(), 4L)).thenThrow(CoffeeVersionMismatchException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_INCREMENT_URL)
+                        .header(HttpHeaders.IF_MATCH, "\"1.4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(quantityDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementWithAWeakETagThenPreconditionFailedStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_INCREMENT_URL)
+                        .header(HttpHeaders.IF_MATCH, "W/\"1.3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(quantityDTO)))
+                .andExpect(status().isPreconditionFailed());
+        verify(coffeeService, never()).increment(VALID_COFFEE_ID, quantityDTO.getQuantity(), 3L);
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementWithAListOfETagsThenTheOneMatchingIsApplied() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(10)
+                .build();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(20).build().toCoffeeDTO();
+        incrementedCoffeeDTO.setVersion(4L);
+
+        when(coffeeService.increment(VALID_COFFEE_ID, quantityDTO.getQuantity(), 2L)).thenThrow(CoffeeVersionMismatchException.class);
+        when(coffeeService.increment(VALID_COFFEE_ID, quantityDTO.getQuantity(), 3L)).thenReturn(incrementedCoffeeDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_INCREMENT_URL)
+                        .header(HttpHeaders.IF_MATCH, "\"1.2\", \"1.3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(quantityDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.4\""))
+                .andExpect(jsonPath("$.quantity", is(20)));
+    }
+
+    @Test
+    void whenPATCHIsCalledToIncrementManyCoffeesThenEachResultIsReturned() throws Exception {
+        List<CoffeeIncrementDTO> increments = Arrays.asList(
+                CoffeeIncrementDTO.builder().id(VALID_COFFEE_ID).quantity(10).build(),
+                CoffeeIncrementDTO.builder().id(INVALID_COFFEE_ID).quantity(10).build());
+        List<CoffeeIncrementResultDTO> results = Arrays.asList(
+                CoffeeIncrementResultDTO.builder().id(VALID_COFFEE_ID).quantityToIncrement(10).success(true).quantity(20).build(),
+                CoffeeIncrementResultDTO.builder().id(INVALID_COFFEE_ID).quantityToIncrement(10).success(false).error("not found").build());
+
+        when(coffeeService.incrementAll(increments)).thenReturn(results);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + COFFEE_API_SUBPATH_INCREMENTS_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(increments))).andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success", is(true)))
+                .andExpect(jsonPath("$[0].quantity", is(20)))
+                .andExpect(jsonPath("$[1].success", is(false)))
+                .andExpect(jsonPath("$[1].error", is("not found")));
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementThenOKstatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(5)
+                .build();
+
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        coffeeDTO.setQuantity(coffeeDTO.getQuantity() - quantityDTO.getQuantity());
+
+        when(coffeeService.decrement(VALID_COFFEE_ID, quantityDTO.getQuantity())).thenReturn(coffeeDTO);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_DECREMENT_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(quantityDTO))).andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(coffeeDTO.getName())))
+                .andExpect(jsonPath("$.quantity", is(coffeeDTO.getQuantity())));
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementMoreThanStockThenBadRequestStatusIsReturned() throws Exception {
+        QuantityDTO quantityDTO = QuantityDTO.builder()
+                .quantity(60)
+                .build();
+
+        when(coffeeService.decrement(VALID_COFFEE_ID, quantityDTO.getQuantity())).thenThrow(CoffeeInsufficientStockException.class);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_DECREMENT_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(quantityDTO))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenPATCHIsCalledToDecrementANegativeOrZeroQuantityThenBadRequestStatusIsReturned() throws Exception {
+        for (int quantity : new int[]{-50, 0}) {
+            mockMvc.perform(MockMvcRequestBuilders.patch(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + COFFEE_API_SUBPATH_DECREMENT_URL)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(QuantityDTO.builder().quantity(quantity).build()))).andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(coffeeService);
+    }
+
+    @Test
+    void whenGETIsCalledForMovementsThenTheReplayedHistoryIsReturned() throws Exception {
+        // given
+        StockMovementDTO movementDTO = StockMovementDTO.builder()
+                .id(3L)
+                .delta(5)
+                .reason(StockMovementReason.INCREMENT)
+                .quantityAfter(15)
+                .build();
+
+        // when
+        when(stockMovementService.history(VALID_COFFEE_ID, null, 100))
+                .thenReturn(new StockMovementPageDTO(Collections.singletonList(movementDTO), null));
+
+        // then
+        mockMvc.perform(MockMvcRequestBuilders.get(COFFEE_API_URL_PATH + "/" + VALID_COFFEE_ID + "/movements")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].reason", is("INCREMENT")))
+                .andExpect(jsonPath("$.content[0].quantityAfter", is(15)));
+    }
+}
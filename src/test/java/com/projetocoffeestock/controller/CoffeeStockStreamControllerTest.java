@@ -0,0 +1,175 @@
+package com.projetocoffeestock.controller;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeStockUpdateDTO;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.service.CoffeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeStockStreamControllerTest {
+
+    @Mock
+    private CoffeeService coffeeService;
+
+    private final Queue<Runnable> pendingSends = new ArrayDeque<>();
+
+    private CoffeeStockStreamController streamController;
+
+    @BeforeEach
+    void setUp() {
+        streamController = new CoffeeStockStreamController(coffeeService, 0L, 0L, pendingSends::add);
+    }
+
+    @Test
+    void whenSubscribedThenSnapshotIsSentBeforeAnyUpdate() {
+        // given
+        when(coffeeService.listSummaries()).thenReturn(Collections.emptyList());
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // when
+        streamController.register(emitter);
+        streamController.onStockChanged(changed(10, 1L));
+        runPendingSends();
+
+        // then
+        assertThat(emitter.sent, hasSize(2));
+        assertThat(emitter.sent.get(0), is(equalTo(Collections.emptyList())));
+        assertThat(((CoffeeStockUpdateDTO) emitter.sent.get(1)).getQuantity(), is(equalTo(10)));
+    }
+
+    @Test
+    void whenSeveralChangesQueueUpForACoffeeThenOnlyTheLatestIsSent() {
+        // given
+        when(coffeeService.listSummaries()).thenReturn(Collections.emptyList());
+        RecordingEmitter emitter = new RecordingEmitter();
+        streamController.register(emitter);
+        runPendingSends();
+        emitter.sent.clear();
+
+        // when
+        streamController.onStockChanged(changed(10, 1L));
+        streamController.onStockChanged(changed(30, 3L));
+        streamController.onStockChanged(changed(20, 2L));
+        runPendingSends();
+
+        // then
+        assertThat(emitter.sent, hasSize(1));
+        CoffeeStockUpdateDTO update = (CoffeeStockUpdateDTO) emitter.sent.get(0);
+        assertThat(update.getQuantity(), is(equalTo(30)));
+        assertThat(update.getVersion(), is(equalTo(3L)));
+    }
+
+    @Test
+    void whenCoffeeIsDeletedThenPendingChangesAreReplacedByTheDeletion() {
+        // given
+        when(coffeeService.listSummaries()).thenReturn(Collections.emptyList());
+        RecordingEmitter emitter = new RecordingEmitter();
+        streamController.register(emitter);
+        runPendingSends();
+        emitter.sent.clear();
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        // when
+        streamController.onStockChanged(changed(10, 1L));
+        streamController.onDeleted(new CoffeeDeletedEvent(coffeeDTO));
+        runPendingSends();
+
+        // then
+        assertThat(emitter.sent, hasSize(1));
+        assertThat(((CoffeeStockUpdateDTO) emitter.sent.get(0)).isDeleted(), is(true));
+        assertThat(pendingSends, is(empty()));
+        assertThat(streamController.trackedCoffees(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenASendBlocksPastTheTimeoutThenTheSubscriberIsDropped() throws InterruptedException {
+        // given
+        when(coffeeService.listSummaries()).thenReturn(Collections.emptyList());
+        BlockingEmitter emitter = new BlockingEmitter();
+        streamController.register(emitter);
+        Thread sender = new Thread(pendingSends.poll());
+        sender.start();
+        emitter.sending.await();
+
+        // when
+        streamController.dropBlockedSubscribers();
+        streamController.onStockChanged(changed(10, 1L));
+
+        // then
+        assertThat(emitter.completed, is(true));
+        assertThat(pendingSends, is(empty()));
+        emitter.release.countDown();
+        sender.join();
+    }
+
+    private void runPendingSends() {
+        Runnable send;
+        while ((send = pendingSends.poll()) != null) {
+            send.run();
+        }
+    }
+
+    private static CoffeeStockChangedEvent changed(int quantity, long version) {
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().quantity(quantity).build().toCoffeeDTO();
+        coffeeDTO.setVersion(version);
+        return new CoffeeStockChangedEvent(coffeeDTO, 0, StockMovementReason.INCREMENT);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(part -> part.getData())
+                    .filter(data -> !(data instanceof String))
+                    .forEach(sent::add);
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
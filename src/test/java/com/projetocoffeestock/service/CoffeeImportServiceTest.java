@@ -0,0 +1,140 @@
+package com.projetocoffeestock.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetocoffeestock.dto.CoffeeImportResultDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.exception.CoffeeImportFormatException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeImportServiceTest {
+
+    private static final String CSV_HEADER = "name,brand,max,quantity,type\n";
+
+    @Mock
+    private CoffeeRepository coffeeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CoffeeNameIndex coffeeNameIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CoffeeImportService coffeeImportService;
+
+    @BeforeEach
+    void setUp() {
+        coffeeImportService = importService(2, 10);
+    }
+
+    private CoffeeImportService importService(int chunkSize, int maxReportedErrors) {
+        return new CoffeeImportService(coffeeRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                coffeeNameIndex,
+                new TransactionTemplate(transactionManager),
+                eventPublisher,
+                chunkSize,
+                maxReportedErrors);
+    }
+
+    @Test
+    void whenValidCsvIsImportedThenRowsAreInsertedInChunks() throws IOException, CoffeeImportFormatException {
+        when(coffeeRepository.findExistingNames(anyCollection())).thenReturn(Collections.emptyList());
+
+        CoffeeImportResultDTO result = coffeeImportService.importCsv(new StringReader(CSV_HEADER
+                + "Melitta,Fazenda Sta Monica,50,10,STAMONICA\n"
+                + "\"Baggio, Aromas\",Baggio,100,20,baggio\n"
+                + "Dutra,Dutra,80,5,DUTRA\n"));
+
+        ArgumentCaptor<List<Coffee>> chunkCaptor = ArgumentCaptor.forClass(List.class);
+        verify(coffeeRepository, times(2)).saveAll(chunkCaptor.capture());
+        assertThat(names(chunkCaptor.getAllValues().get(0)), contains("Melitta", "Baggio, Aromas"));
+        assertThat(names(chunkCaptor.getAllValues().get(1)), contains("Dutra"));
+        assertThat(result.getImported(), is(equalTo(3L)));
+        verify(eventPublisher, times(3)).publishEvent(any(CoffeeStockChangedEvent.class));
+        assertThat(result.getRejected(), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenInvalidAndDuplicatedRowsAreImportedThenEachOneIsReportedWithItsLine() throws IOException, CoffeeImportFormatException {
+        coffeeImportService = importService(10, 10);
+        when(coffeeRepository.findExistingNames(anyCollection())).thenReturn(Collections.singletonList("Melitta"));
+
+        CoffeeImportResultDTO result = coffeeImportService.importCsv(new StringReader(CSV_HEADER
+                + "Melitta,Fazenda Sta Monica,50,10,STAMONICA\n"
+                + "Baggio,Baggio,900,20,BAGGIO\n"
+                + "Dutra,Dutra,abc,5,DUTRA\n"
+                + "SaoBraz,SaoBraz,80,5,SAOBRAZ\n"
+                + "SaoBraz,SaoBraz,80,5,SAOBRAZ\n"));
+
+        assertThat(result.getImported(), is(equalTo(1L)));
+        assertThat(result.getRejected(), is(equalTo(4L)));
+        assertThat(result.getErrors().stream().map(error -> error.getLine()).sorted().collect(Collectors.toList()), contains(2L, 3L, 4L, 6L));
+        assertThat(result.getErrors().stream().filter(error -> error.getLine() == 3L).findFirst().get().getError(), containsString("max"));
+    }
+
+    @Test
+    void whenMoreErrorsThanTheCapAreFoundThenTheReportIsTruncated() throws IOException {
+        coffeeImportService = importService(2, 1);
+
+        CoffeeImportResultDTO result = coffeeImportService.importNdjson(new StringReader("not json\n{\"name\":\"Melitta\"}\n"));
+
+        assertThat(result.getRejected(), is(equalTo(2L)));
+        assertThat(result.getErrors(), hasSize(1));
+        assertThat(result.isErrorsTruncated(), is(true));
+    }
+
+    @Test
+    void whenValidNdjsonIsImportedThenRowsAreInserted() throws IOException {
+        when(coffeeRepository.findExistingNames(anyCollection())).thenReturn(Collections.emptyList());
+
+        CoffeeImportResultDTO result = coffeeImportService.importNdjson(new StringReader(
+                "{\"name\":\"Melitta\",\"brand\":\"Fazenda Sta Monica\",\"max\":50,\"quantity\":10,\"type\":\"STAMONICA\"}\n"));
+
+        verify(coffeeRepository).saveAll(org.mockito.ArgumentMatchers.anyList());
+        assertThat(result.getImported(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenCsvHeaderIsMissingAColumnThenThrowException() {
+        assertThrows(CoffeeImportFormatException.class, () -> coffeeImportService.importCsv(new StringReader("name,brand,max,quantity\n")));
+    }
+
+    private static List<String> names(List<Coffee> coffees) {
+        return coffees.stream().map(Coffee::getName).collect(Collectors.toList());
+    }
+}
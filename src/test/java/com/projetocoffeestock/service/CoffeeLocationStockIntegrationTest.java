@@ -0,0 +1,106 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeLocationStockDTO;
+import com.projetocoffeestock.dto.CoffeeLocationsStockDTO;
+import com.projetocoffeestock.repository.CoffeeLocationStockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+public class CoffeeLocationStockIntegrationTest {
+
+    private static final int CALLERS = 8;
+    private static final int LOCATIONS = 50;
+
+    @Autowired
+    private CoffeeService coffeeService;
+
+    @Autowired
+    private CoffeeLocationStockService coffeeLocationStockService;
+
+    @Autowired
+    private CoffeeLocationStockRepository coffeeLocationStockRepository;
+
+    private CoffeeDTO coffeeDTO;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coffeeDTO = coffeeService.createCoffee(CoffeeDTOBuilder.builder()
+                .id(null)
+                .name("Location concurrency")
+                .quantity(10)
+                .max(1000)
+                .build()
+                .toCoffeeDTO());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        coffeeService.deleteById(coffeeDTO.getId());
+    }
+
+    @Test
+    void whenFirstIncrementsOfALocationRaceThenNoneOfThemIsLost() throws Exception {
+        // given
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<Void>> callers = new ArrayList<>();
+
+        // when
+        for (int caller = 0; caller < CALLERS; caller++) {
+            Callable<Void> increments = () -> {
+                start.await();
+                for (int location = 0; location < LOCATIONS; location++) {
+                    coffeeLocationStockService.increment(coffeeDTO.getId(), "store-" + location, 1);
+                }
+                return null;
+            };
+            callers.add(executor.submit(increments));
+        }
+        start.countDown();
+        for (Future<Void> caller : callers) {
+            caller.get();
+        }
+        executor.shutdown();
+
+        // then
+        CoffeeLocationsStockDTO stock = coffeeLocationStockService.stockOf(coffeeDTO.getId());
+        for (CoffeeLocationStockDTO location : stock.getLocations()) {
+            if (location.getLocation().startsWith("store-")) {
+                assertThat(location.getQuantity(), is(equalTo(CALLERS)));
+            }
+        }
+        assertThat(stock.getTotal(), is(equalTo((long) coffeeDTO.getQuantity() + CALLERS * LOCATIONS)));
+    }
+
+    @Test
+    void whenARepositoryDecrementWouldPassTheMaxThenTheLocationIsNotUpdated() throws Exception {
+        // given
+        coffeeLocationStockService.increment(coffeeDTO.getId(), "store-0", coffeeDTO.getMax() - 1);
+
+        // when
+        int updatedRows = coffeeLocationStockRepository.decrementQuantity(coffeeDTO.getId(), "store-0", -2);
+
+        // then
+        assertThat(updatedRows, is(equalTo(0)));
+        assertThat(coffeeLocationStockRepository.findByCoffeeIdAndLocation(coffeeDTO.getId(), "store-0").get().getQuantity(),
+                is(equalTo(coffeeDTO.getMax() - 1)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeLocationStockDTO;
+import com.projetocoffeestock.dto.CoffeeLocationsStockDTO;
+import com.projetocoffeestock.entity.CoffeeLocationStock;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeLocationInvalidException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.repository.CoffeeLocationStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeLocationStockServiceTest {
+
+    private static final String DEFAULT_LOCATION = "main";
+
+    @Mock
+    private CoffeeLocationStockRepository coffeeLocationStockRepository;
+
+    @Mock
+    private CoffeeService coffeeService;
+
+    @Mock
+    private CoffeeStockLedger coffeeStockLedger;
+
+    private CoffeeLocationStockService coffeeLocationStockService;
+
+    private CoffeeDTO coffeeDTO;
+
+    @BeforeEach
+    void setUp() {
+        coffeeLocationStockService = new CoffeeLocationStockService(coffeeLocationStockRepository, coffeeService, coffeeStockLedger, DEFAULT_LOCATION);
+        coffeeDTO = CoffeeDTOBuilder.builder().quantity(10).build().toCoffeeDTO();
+    }
+
+    @Test
+    void whenDefaultLocationIsIncrementedThenCoffeeStockIsIncremented() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException {
+        // given
+        coffeeDTO.setQuantity(15);
+        when(coffeeService.increment(coffeeDTO.getId(), 5)).thenReturn(coffeeDTO);
+
+        // when
+        CoffeeLocationStockDTO stock = coffeeLocationStockService.increment(coffeeDTO.getId(), DEFAULT_LOCATION, 5);
+
+        // then
+        assertThat(stock.getLocation(), is(equalTo(DEFAULT_LOCATION)));
+        assertThat(stock.getQuantity(), is(equalTo(15)));
+        verifyNoInteractions(coffeeLocationStockRepository);
+    }
+
+    @Test
+    void whenLocationIsIncrementedForTheFirstTimeThenItsStockIsCreatedWithTheCoffeeMax() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException {
+        // given
+        CoffeeLocationStock created = new CoffeeLocationStock(1L, coffeeDTO.getId(), "store-2", coffeeDTO.getMax(), 5);
+        when(coffeeLocationStockRepository.incrementQuantity(coffeeDTO.getId(), "store-2", 5)).thenReturn(0);
+        when(coffeeLocationStockRepository.findByCoffeeIdAndLocation(coffeeDTO.getId(), "store-2"))
+                .thenReturn(Optional.empty(), Optional.of(created));
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(coffeeDTO);
+
+        // when
+        CoffeeLocationStockDTO stock = coffeeLocationStockService.increment(coffeeDTO.getId(), "store-2", 5);
+
+        // then
+        ArgumentCaptor<CoffeeLocationStock> saved = ArgumentCaptor.forClass(CoffeeLocationStock.class);
+        verify(coffeeLocationStockRepository).saveAndFlush(saved.capture());
+        assertThat(saved.getValue().getMax(), is(equalTo(coffeeDTO.getMax())));
+        assertThat(saved.getValue().getQuantity(), is(equalTo(5)));
+        assertThat(stock.getQuantity(), is(equalTo(5)));
+    }
+
+    @Test
+    void whenLocationIsCreatedByAnotherIncrementMeanwhileThenTheIncrementIsRetried() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeLocationInvalidException {
+        // given
+        CoffeeLocationStock created = new CoffeeLocationStock(1L, coffeeDTO.getId(), "store-2", coffeeDTO.getMax(), 5);
+        when(coffeeLocationStockRepository.incrementQuantity(coffeeDTO.getId(), "store-2", 5)).thenReturn(0, 1);
+        when(coffeeLocationStockRepository.findByCoffeeIdAndLocation(coffeeDTO.getId(), "store-2")).thenReturn(Optional.of(created));
+
+        // when
+        CoffeeLocationStockDTO stock = coffeeLocationStockService.increment(coffeeDTO.getId(), "store-2", 5);
+
+        // then
+        assertThat(stock.getQuantity(), is(equalTo(5)));
+        verify(coffeeLocationStockRepository, times(2)).incrementQuantity(coffeeDTO.getId(), "store-2", 5);
+        verify(coffeeLocationStockRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void whenLocationHasNotEnoughStockThenDecrementIsRejected() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        // given
+        when(coffeeLocationStockRepository.decrementQuantity(coffeeDTO.getId(), "store-2", 5)).thenReturn(0);
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(coffeeDTO);
+
+        // then
+        assertThrows(CoffeeInsufficientStockException.class, () -> coffeeLocationStockService.decrement(coffeeDTO.getId(), "store-2", 5));
+        verify(coffeeService, never()).decrement(anyLong(), anyInt());
+    }
+
+    @Test
+    void whenLocationDecrementIsNegativeOrZeroThenRepositoryIsNotCalled() {
+        // then
+        assertThrows(IllegalArgumentException.class, () -> coffeeLocationStockService.decrement(coffeeDTO.getId(), "store-2", -50));
+        assertThrows(IllegalArgumentException.class, () -> coffeeLocationStockService.decrement(coffeeDTO.getId(), "store-2", 0));
+        verifyNoInteractions(coffeeLocationStockRepository, coffeeService);
+    }
+
+    @Test
+    void whenLocationNameIsInvalidThenRepositoryIsNotCalled() {
+        // then
+        assertThrows(CoffeeLocationInvalidException.class, () -> coffeeLocationStockService.increment(coffeeDTO.getId(), "store 2/a", 5));
+        verify(coffeeLocationStockRepository, never()).incrementQuantity(anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    void whenStockIsRequestedThenLocationsAreSummedWithTheDefaultLocation() throws CoffeeNotFoundException {
+        // given
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(coffeeDTO);
+        when(coffeeLocationStockRepository.findByCoffeeIdOrderByLocationAsc(coffeeDTO.getId())).thenReturn(Arrays.asList(
+                new CoffeeLocationStock(1L, coffeeDTO.getId(), "store-2", 50, 7),
+                new CoffeeLocationStock(2L, coffeeDTO.getId(), "store-3", 50, 3)));
+
+        // when
+        CoffeeLocationsStockDTO stock = coffeeLocationStockService.stockOf(coffeeDTO.getId());
+
+        // then
+        assertThat(stock.getTotal(), is(equalTo(20L)));
+        assertThat(stock.getLocations().stream().map(CoffeeLocationStockDTO::getLocation).toArray(),
+                is(equalTo(new Object[]{DEFAULT_LOCATION, "store-2", "store-3"})));
+    }
+}
@@ -0,0 +1,51 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class CoffeeNameCacheTest {
+
+    private CoffeeNameCache coffeeNameCache;
+
+    private CoffeeDTO coffeeDTO;
+
+    @BeforeEach
+    void setUp() {
+        coffeeNameCache = new CoffeeNameCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+    }
+
+    @Test
+    void whenANameIsLoadedThenOneMissIsRecorded() {
+        // when
+        coffeeNameCache.get(coffeeDTO.getName(), name -> coffeeDTO);
+
+        // then
+        assertThat(coffeeNameCache.stats().missCount(), is(equalTo(1L)));
+        assertThat(coffeeNameCache.stats().hitCount(), is(equalTo(0L)));
+        assertThat(coffeeNameCache.stats().loadSuccessCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenACachedNameIsLookedUpThenOneHitIsRecorded() {
+        // given
+        coffeeNameCache.get(coffeeDTO.getName(), name -> coffeeDTO);
+
+        // when
+        CoffeeDTO cached = coffeeNameCache.get(coffeeDTO.getName(), name -> null);
+
+        // then
+        assertThat(cached, is(equalTo(coffeeDTO)));
+        assertThat(coffeeNameCache.stats().missCount(), is(equalTo(1L)));
+        assertThat(coffeeNameCache.stats().hitCount(), is(equalTo(1L)));
+    }
+}
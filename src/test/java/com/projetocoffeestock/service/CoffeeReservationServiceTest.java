@@ -0,0 +1,116 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.CoffeeReservationDTO;
+import com.projetocoffeestock.dto.CoffeeReservationRequestDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeReservationNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeReservationServiceTest {
+
+    private static final long COFFEE_ID = 1L;
+
+    @Mock
+    private CoffeeService coffeeService;
+
+    @Mock
+    private CoffeeStockHolds coffeeStockHolds;
+
+    private final MutableClock clock = new MutableClock();
+
+    private CoffeeReservationService coffeeReservationService;
+
+    @BeforeEach
+    void setUp() {
+        coffeeReservationService = new CoffeeReservationService(coffeeService, coffeeStockHolds, Duration.ofMinutes(5), Duration.ofMinutes(30), clock);
+    }
+
+    @Test
+    void whenReservationIsConfirmedThenHeldUnitsAreTakenOutOfStock() throws Exception {
+        // given
+        CoffeeReservationDTO reservation = coffeeReservationService.reserve(request(60));
+
+        // when
+        coffeeReservationService.confirm(reservation.getId());
+
+        // then
+        verify(coffeeStockHolds).hold(COFFEE_ID, 3);
+        verify(coffeeService).confirmHold(COFFEE_ID, 3);
+        assertThrows(CoffeeReservationNotFoundException.class, () -> coffeeReservationService.release(reservation.getId()));
+    }
+
+    @Test
+    void whenTtlRunsOutThenHeldUnitsAreReleased() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        // given
+        CoffeeReservationDTO reservation = coffeeReservationService.reserve(request(60));
+
+        // when
+        clock.advance(Duration.ofSeconds(59));
+        coffeeReservationService.expire();
+        verify(coffeeStockHolds, never()).release(COFFEE_ID, 3);
+        clock.advance(Duration.ofSeconds(1));
+        coffeeReservationService.expire();
+
+        // then
+        verify(coffeeStockHolds).release(COFFEE_ID, 3);
+        assertThrows(CoffeeReservationNotFoundException.class, () -> coffeeReservationService.confirm(reservation.getId()));
+    }
+
+    @Test
+    void whenTtlIsAboveTheMaximumThenItIsCapped() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        CoffeeReservationDTO reservation = coffeeReservationService.reserve(request(24 * 60 * 60));
+
+        assertThat(reservation.getExpiresAt(), is(equalTo(clock.instant().plus(Duration.ofMinutes(30)))));
+    }
+
+    private static CoffeeReservationRequestDTO request(int ttlSeconds) {
+        return CoffeeReservationRequestDTO.builder()
+                .coffeeId(COFFEE_ID)
+                .quantity(3)
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2021-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.CoffeeTypeQuantity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeServiceMetricsTest {
+
+    @Mock
+    private CoffeeRepository coffeeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CoffeeServiceMetrics coffeeServiceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coffeeServiceMetrics = new CoffeeServiceMetrics(meterRegistry, coffeeRepository);
+    }
+
+    @Test
+    void whenOperationsAreRecordedThenTimerAndOutcomeCountersAreUpdated() {
+        coffeeServiceMetrics.record(CoffeeOperation.FIND_BY_NAME, System.nanoTime(), null);
+        coffeeServiceMetrics.record(CoffeeOperation.FIND_BY_NAME, System.nanoTime(), new CoffeeNotFoundException("Unknown"));
+        coffeeServiceMetrics.record(CoffeeOperation.FIND_BY_NAME, System.nanoTime(), new IllegalStateException());
+
+        assertThat(meterRegistry.get(CoffeeServiceMetrics.OPERATION_TIMER).tag("operation", "findByName").timer().count(), is(equalTo(3L)));
+        assertThat(outcomeCount("findByName", CoffeeServiceMetrics.NO_EXCEPTION), is(equalTo(1.0)));
+        assertThat(outcomeCount("findByName", "CoffeeNotFoundException"), is(equalTo(1.0)));
+        assertThat(outcomeCount("findByName", "IllegalStateException"), is(equalTo(1.0)));
+        assertThat(outcomeCount("increment", "CoffeeStockExceededException"), is(equalTo(0.0)));
+    }
+
+    @Test
+    void whenUnitsInStockAreRefreshedThenGaugesReportTheTotalPerType() {
+        when(coffeeRepository.sumQuantityByType()).thenReturn(Collections.singletonList(typeQuantity(CoffeeType.BAGGIO, 42L)));
+
+        coffeeServiceMetrics.refreshUnitsInStock();
+
+        assertThat(unitsInStock(CoffeeType.BAGGIO), is(equalTo(42.0)));
+        assertThat(unitsInStock(CoffeeType.DUTRA), is(equalTo(0.0)));
+    }
+
+    private double outcomeCount(String operation, String exception) {
+        return meterRegistry.get(CoffeeServiceMetrics.OUTCOME_COUNTER)
+                .tag("operation", operation)
+                .tag("exception", exception)
+                .counter()
+                .count();
+    }
+
+    private double unitsInStock(CoffeeType type) {
+        return meterRegistry.get(CoffeeServiceMetrics.STOCK_GAUGE).tag("type", type.name()).gauge().value();
+    }
+
+    private static CoffeeTypeQuantity typeQuantity(CoffeeType type, Long quantity) {
+        return new CoffeeTypeQuantity() {
+            @Override
+            public CoffeeType getType() {
+                return type;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -2,9 +2,21 @@ package com.projetocoffeestock.service;
 
 import com.projetocoffeestock.builder.CoffeeDTOBuilder;
 import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementDTO;
+import com.projetocoffeestock.dto.CoffeeIncrementResultDTO;
+import com.projetocoffeestock.dto.CoffeePageDTO;
+import com.projetocoffeestock.dto.CoffeeSearchDTO;
+import com.projetocoffeestock.dto.CoffeeSearchPageDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryDTO;
+import com.projetocoffeestock.dto.CoffeeSummaryPageDTO;
 import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeSortField;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
 import com.projetocoffeestock.exception.CoffeeAlreadyRegisteredException;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
 import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeSearchCursorException;
 import com.projetocoffeestock.exception.CoffeeStockExceededException;
 import com.projetocoffeestock.mapper.CoffeeMapper;
 import com.projetocoffeestock.repository.CoffeeRepository;
@@ -12,14 +24,35 @@ import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -45,6 +78,35 @@ public class CoffeeServiceTest {
     @Mock
     private CoffeeRepository coffeeRepository;
 
+    @Mock
+    private CoffeeStockLedger coffeeStockLedger;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CoffeeServiceMetrics coffeeServiceMetrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CoffeeNameIndex coffeeNameIndex;
+
+    @Mock
+    private CoffeeStockHolds coffeeStockHolds;
+
+    @Mock
+    private HotStockTable hotStockTable;
+
+    private final SimpleMeterRegistry nameCacheMeterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CoffeeNameCache coffeeNameCache = new CoffeeNameCache(nameCacheMeterRegistry, 100, Duration.ofMinutes(1));
+
     private CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
 
     @InjectMocks
@@ -57,7 +119,7 @@ public class CoffeeServiceTest {
         Coffee expectedSavedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
 
         // when
-        when(coffeeRepository.findByName(expectedCoffeeDTO.getName())).thenReturn(Optional.empty());
+        when(coffeeNameIndex.mightContain(expectedCoffeeDTO.getName())).thenReturn(false);
         when(coffeeRepository.save(expectedSavedCoffee)).thenReturn(expectedSavedCoffee);
 
         //then
@@ -66,6 +128,8 @@ public class CoffeeServiceTest {
         assertThat(createdCoffeeDTO.getId(), is(equalTo(expectedCoffeeDTO.getId())));
         assertThat(createdCoffeeDTO.getName(), is(equalTo(expectedCoffeeDTO.getName())));
         assertThat(createdCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity())));
+        verify(coffeeRepository, never()).existsByName(expectedCoffeeDTO.getName());
+        verify(coffeeNameIndex).add(expectedCoffeeDTO.getName());
     }
 
     @Test
@@ -75,7 +139,24 @@ public class CoffeeServiceTest {
         Coffee duplicatedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
 
         // when
-        when(coffeeRepository.findByName(expectedCoffeeDTO.getName())).thenReturn(Optional.of(duplicatedCoffee));
+        when(coffeeNameIndex.mightContain(expectedCoffeeDTO.getName())).thenReturn(true);
+        when(coffeeRepository.existsByName(expectedCoffeeDTO.getName())).thenReturn(true);
+
+        // then
+        assertThrows(CoffeeAlreadyRegisteredException.class, () -> coffeeService.createCoffee(expectedCoffeeDTO));
+        verify(coffeeRepository, never()).save(duplicatedCoffee);
+    }
+
+    @Test
+    void whenAConcurrentCreateWinsTheUniqueConstraintThenAnExceptionShouldBeThrown() {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee duplicatedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        // when
+        when(coffeeNameIndex.mightContain(expectedCoffeeDTO.getName())).thenReturn(false);
+        when(coffeeRepository.save(duplicatedCoffee)).thenThrow(DataIntegrityViolationException.class);
+        when(coffeeRepository.existsByName(expectedCoffeeDTO.getName())).thenReturn(true);
 
         // then
         assertThrows(CoffeeAlreadyRegisteredException.class, () -> coffeeService.createCoffee(expectedCoffeeDTO));
@@ -96,6 +177,92 @@ public class CoffeeServiceTest {
         assertThat(foundCoffeeDTO, is(equalTo(expectedFoundCoffeeDTO)));
     }
 
+    @Test
+    void whenCoffeeIsInTheHotStockTableThenFindByNameSkipsCacheAndRepository() throws CoffeeNotFoundException {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        // when
+        when(hotStockTable.findByName(expectedFoundCoffeeDTO.getName())).thenReturn(expectedFoundCoffeeDTO);
+
+        // then
+        CoffeeDTO foundCoffeeDTO = coffeeService.findByName(expectedFoundCoffeeDTO.getName());
+
+        assertThat(foundCoffeeDTO, is(equalTo(expectedFoundCoffeeDTO)));
+        verify(coffeeNameCache, never()).get(eq(expectedFoundCoffeeDTO.getName()), any());
+        verify(coffeeRepository, never()).findByName(expectedFoundCoffeeDTO.getName());
+    }
+
+    @Test
+    void whenTheSameNameIsGivenTwiceThenTheSecondLookupIsServedFromCache() throws CoffeeNotFoundException {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedFoundCoffee = coffeeMapper.toModel(expectedFoundCoffeeDTO);
+
+        // when
+        when(coffeeRepository.findByName(expectedFoundCoffee.getName())).thenReturn(Optional.of(expectedFoundCoffee));
+
+        // then
+        coffeeService.findByName(expectedFoundCoffeeDTO.getName());
+        CoffeeDTO foundCoffeeDTO = coffeeService.findByName(expectedFoundCoffeeDTO.getName());
+
+        assertThat(foundCoffeeDTO, is(equalTo(expectedFoundCoffeeDTO)));
+        verify(coffeeRepository, times(1)).findByName(expectedFoundCoffeeDTO.getName());
+    }
+
+    @Test
+    void whenTheSameUnknownNameIsLookedUpConcurrentlyThenOneQueryIsSharedByAllCallers() throws Exception {
+        // given
+        int callers = 8;
+        CountDownLatch queryReleased = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // when
+        when(coffeeRepository.findByName("Promo")).thenAnswer(invocation -> {
+            queryReleased.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        // then
+        try {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                lookups.add(executor.submit(() -> assertThrows(CoffeeNotFoundException.class, () -> coffeeService.findByName("Promo"))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (nameCacheMeterRegistry.counter(CoffeeNameCache.COALESCED_COUNTER).count() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            queryReleased.countDown();
+            for (Future<?> lookup : lookups) {
+                lookup.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(coffeeRepository, times(1)).findByName("Promo");
+    }
+
+    @Test
+    void whenIncrementIsCalledThenTheCachedCoffeeIsEvicted() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedFoundCoffee = coffeeMapper.toModel(expectedFoundCoffeeDTO);
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedFoundCoffeeDTO.getQuantity() + 10).build().toCoffeeDTO();
+
+        // when
+        when(coffeeRepository.findByName(expectedFoundCoffee.getName())).thenReturn(Optional.of(expectedFoundCoffee));
+        when(coffeeStockLedger.increment(expectedFoundCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+
+        // then
+        coffeeService.findByName(expectedFoundCoffeeDTO.getName());
+        coffeeService.increment(expectedFoundCoffeeDTO.getId(), 10);
+        coffeeService.findByName(expectedFoundCoffeeDTO.getName());
+
+        verify(coffeeNameCache, times(1)).evict(expectedFoundCoffeeDTO.getName());
+        verify(coffeeRepository, times(2)).findByName(expectedFoundCoffeeDTO.getName());
+    }
+
     @Test
     void whenNotRegisteredBeerNameIsGivenThenThrowAnException() {
         // given
@@ -108,6 +275,45 @@ public class CoffeeServiceTest {
         assertThrows(CoffeeNotFoundException.class, () -> coffeeService.findByName(expectedFoundCoffeeDTO.getName()));
     }
 
+    @Test
+    void whenNotRegisteredBeerNameIsGivenThenTheFailureIsRecorded() {
+        // when
+        when(coffeeRepository.findByName("Unknown")).thenReturn(Optional.empty());
+
+        CoffeeService meteredCoffeeService = metered(coffeeService);
+
+        // then
+        CoffeeNotFoundException exception = assertThrows(CoffeeNotFoundException.class, () -> meteredCoffeeService.findByName("Unknown"));
+        verify(coffeeServiceMetrics).record(eq(CoffeeOperation.FIND_BY_NAME), anyLong(), eq(exception));
+    }
+
+    @Test
+    void whenPagesAreListedOrHoldsConfirmedThenEachIsRecordedAsItsOwnOperation() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeService meteredCoffeeService = metered(coffeeService);
+
+        // when
+        when(coffeeStockLedger.decrement(expectedCoffeeDTO.getId(), 5)).thenReturn(expectedCoffeeDTO);
+        when(coffeeRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+        meteredCoffeeService.listPage(null, 10);
+        meteredCoffeeService.streamAll(coffeeDTO -> { });
+        meteredCoffeeService.confirmHold(expectedCoffeeDTO.getId(), 5);
+
+        // then
+        verify(coffeeServiceMetrics).record(eq(CoffeeOperation.LIST_PAGE), anyLong(), isNull());
+        verify(coffeeServiceMetrics).record(eq(CoffeeOperation.STREAM_ALL), anyLong(), isNull());
+        verify(coffeeServiceMetrics).record(eq(CoffeeOperation.CONFIRM_HOLD), anyLong(), isNull());
+        verify(coffeeServiceMetrics, never()).record(eq(CoffeeOperation.DECREMENT), anyLong(), any());
+    }
+
+    private CoffeeService metered(CoffeeService coffeeService) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(coffeeService);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new CoffeeServiceMetricsAspect(coffeeServiceMetrics));
+        return proxyFactory.getProxy();
+    }
+
     @Test
     void whenListBeerIsCalledThenReturnAListOfCoffees() {
         // given
@@ -135,6 +341,118 @@ public class CoffeeServiceTest {
         assertThat(foundListCoffeesDTO, is(empty()));
     }
 
+    @Test
+    void whenListSummariesIsCalledThenQuantitiesComeFromTheStockLedger() {
+        // given
+        CoffeeSummaryDTO summaryDTO = new CoffeeSummaryDTO(1L, "Melitta", CoffeeType.STAMONICA, 10);
+
+        //when
+        when(coffeeRepository.findAllSummaries()).thenReturn(Collections.singletonList(summaryDTO));
+        when(coffeeStockLedger.quantityOf(1L, 10)).thenReturn(12);
+
+        //then
+        List<CoffeeSummaryDTO> summaries = coffeeService.listSummaries();
+
+        assertThat(summaries.get(0).getName(), is(equalTo("Melitta")));
+        assertThat(summaries.get(0).getQuantity(), is(equalTo(12)));
+    }
+
+    @Test
+    void whenListPageIsCalledWithAFullPageThenReturnTheNextCursor() {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedFoundCoffee = coffeeMapper.toModel(expectedFoundCoffeeDTO);
+
+        //when
+        when(coffeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1))).thenReturn(Collections.singletonList(expectedFoundCoffee));
+
+        //then
+        CoffeePageDTO coffeePageDTO = coffeeService.listPage(null, 1);
+
+        assertThat(coffeePageDTO.getContent().get(0), is(equalTo(expectedFoundCoffeeDTO)));
+        assertThat(coffeePageDTO.getNextAfterId(), is(equalTo(expectedFoundCoffeeDTO.getId())));
+    }
+
+    @Test
+    void whenListPageIsCalledWithAnOversizedPageThenTheSizeIsCapped() {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedFoundCoffee = coffeeMapper.toModel(expectedFoundCoffeeDTO);
+
+        //when
+        when(coffeeRepository.findByIdGreaterThanOrderByIdAsc(expectedFoundCoffeeDTO.getId(), PageRequest.of(0, CoffeeService.MAX_PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(expectedFoundCoffee));
+
+        //then
+        CoffeePageDTO coffeePageDTO = coffeeService.listPage(expectedFoundCoffeeDTO.getId(), 10_000);
+
+        assertThat(coffeePageDTO.getContent(), hasSize(1));
+        assertThat(coffeePageDTO.getNextAfterId(), is(nullValue()));
+    }
+
+    @Test
+    void whenListSummaryPageIsCalledThenSummariesCarryTheLedgerQuantityAndTheNextCursor() {
+        // given
+        CoffeeSummaryDTO summaryDTO = new CoffeeSummaryDTO(1L, "Melitta", CoffeeType.STAMONICA, 10);
+
+        //when
+        when(coffeeRepository.findSummariesByIdGreaterThan(0L, PageRequest.of(0, 1))).thenReturn(new ArrayList<>(Collections.singletonList(summaryDTO)));
+        when(coffeeStockLedger.quantityOf(1L, 10)).thenReturn(12);
+
+        //then
+        CoffeeSummaryPageDTO summaryPageDTO = coffeeService.listSummaryPage(null, 1);
+
+        assertThat(summaryPageDTO.getContent().get(0).getQuantity(), is(equalTo(12)));
+        assertThat(summaryPageDTO.getNextAfterId(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenSearchMatchesMoreThanAPageThenCursorContinuesAfterTheLastCoffee() throws CoffeeSearchCursorException {
+        // given
+        Coffee firstCoffee = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(1L).quantity(5).build().toCoffeeDTO());
+        Coffee secondCoffee = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(2L).quantity(7).build().toCoffeeDTO());
+        CoffeeSearchDTO search = CoffeeSearchDTO.builder().sort(CoffeeSortField.QUANTITY).size(1).build();
+
+        //when
+        when(coffeeRepository.findAll(Mockito.<Specification<Coffee>>any(), eq(Sort.by(Sort.Direction.ASC, "quantity", "id")), eq(2)))
+                .thenReturn(Arrays.asList(firstCoffee, secondCoffee));
+
+        //then
+        CoffeeSearchPageDTO page = coffeeService.search(search);
+
+        assertThat(page.getContent(), hasSize(1));
+        assertThat(page.getContent().get(0).getId(), is(equalTo(1L)));
+        assertThat(page.getNextCursor(), is(notNullValue()));
+        verify(coffeeStockLedger, never()).flush();
+
+        coffeeService.search(CoffeeSearchDTO.builder().sort(CoffeeSortField.QUANTITY).size(1).after(page.getNextCursor()).build());
+    }
+
+    @Test
+    void whenSearchCursorIsMalformedThenThrowException() {
+        CoffeeSearchDTO search = CoffeeSearchDTO.builder().sort(CoffeeSortField.QUANTITY).after("not-a-cursor").build();
+
+        assertThrows(CoffeeSearchCursorException.class, () -> coffeeService.search(search));
+        verify(coffeeRepository, never()).findAll(Mockito.<Specification<Coffee>>any(), Mockito.any(Sort.class), anyInt());
+    }
+
+    @Test
+    void whenStreamAllIsCalledThenEachCoffeeIsHandedOverAndDetached() {
+        // given
+        CoffeeDTO expectedFoundCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedFoundCoffee = coffeeMapper.toModel(expectedFoundCoffeeDTO);
+        List<CoffeeDTO> streamedCoffees = new ArrayList<>();
+
+        //when
+        when(coffeeRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(expectedFoundCoffee));
+
+        //then
+        coffeeService.streamAll(streamedCoffees::add);
+
+        assertThat(streamedCoffees, contains(expectedFoundCoffeeDTO));
+        verify(entityManager, times(1)).detach(expectedFoundCoffee);
+    }
+
     @Test
     void whenExclusionIsCalledWithValidIdThenABeerShouldBeDeleted() throws CoffeeNotFoundException {
         // given
@@ -150,56 +468,251 @@ public class CoffeeServiceTest {
 
         verify(coffeeRepository, times(1)).findById(expectedDeletedCoffeeDTO.getId());
         verify(coffeeRepository, times(1)).deleteById(expectedDeletedCoffeeDTO.getId());
+        verify(coffeeStockLedger, times(1)).evict(expectedDeletedCoffeeDTO.getId());
     }
 
     @Test
     void whenIncrementIsCalledThenIncrementCoffeeStock() throws CoffeeNotFoundException, CoffeeStockExceededException {
         //given
         CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
-        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
-
-        //when
-        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
-        when(coffeeRepository.save(expectedCoffee)).thenReturn(expectedCoffee);
-
         int quantityToIncrement = 10;
         int expectedQuantityAfterIncrement = expectedCoffeeDTO.getQuantity() + quantityToIncrement;
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedQuantityAfterIncrement).build().toCoffeeDTO();
+
+        //when
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), quantityToIncrement)).thenReturn(incrementedCoffeeDTO);
 
         // then
-        CoffeeDTO incrementedCoffeeDTO = coffeeService.increment(expectedCoffeeDTO.getId(), quantityToIncrement);
+        CoffeeDTO resultCoffeeDTO = coffeeService.increment(expectedCoffeeDTO.getId(), quantityToIncrement);
 
-        assertThat(expectedQuantityAfterIncrement, equalTo(incrementedCoffeeDTO.getQuantity()));
+        assertThat(expectedQuantityAfterIncrement, equalTo(resultCoffeeDTO.getQuantity()));
         assertThat(expectedQuantityAfterIncrement, lessThan(expectedCoffeeDTO.getMax()));
     }
 
     @Test
-    void whenIncrementIsGreatherThanMaxThenThrowException() {
+    void whenIncrementIsCalledThenAStockChangedEventIsPublished() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        //given
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(20).build().toCoffeeDTO();
+        ArgumentCaptor<CoffeeStockChangedEvent> eventCaptor = ArgumentCaptor.forClass(CoffeeStockChangedEvent.class);
+
+        //when
+        when(coffeeStockLedger.increment(incrementedCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+
+        // then
+        coffeeService.increment(incrementedCoffeeDTO.getId(), 10);
+
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getCoffee(), is(equalTo(incrementedCoffeeDTO)));
+        assertThat(eventCaptor.getValue().getDelta(), is(equalTo(10)));
+    }
+
+    @Test
+    void whenNegativeIncrementIsCalledThenItsUnitsAreHeldWhileTheStockIsChanged() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeInsufficientStockException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() - 5).build().toCoffeeDTO();
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), -5)).thenReturn(incrementedCoffeeDTO);
+
+        // when
+        CoffeeDTO resultCoffeeDTO = coffeeService.increment(expectedCoffeeDTO.getId(), -5);
+
+        // then
+        assertThat(resultCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() - 5)));
+        verify(coffeeStockHolds).hold(expectedCoffeeDTO.getId(), 5);
+        verify(coffeeStockHolds).release(expectedCoffeeDTO.getId(), 5);
+    }
+
+    @Test
+    void whenNegativeIncrementCutsIntoHeldStockThenThrowException() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeInsufficientStockException {
+        // given
         CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
-        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+        doThrow(new CoffeeInsufficientStockException(expectedCoffeeDTO.getId(), 5))
+                .when(coffeeStockHolds).hold(expectedCoffeeDTO.getId(), 5);
+
+        // then
+        assertThrows(CoffeeStockExceededException.class, () -> coffeeService.increment(expectedCoffeeDTO.getId(), -5));
+        verify(coffeeStockLedger, never()).increment(expectedCoffeeDTO.getId(), -5);
+        verify(coffeeStockHolds, never()).release(expectedCoffeeDTO.getId(), 5);
+    }
 
-        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+    @Test
+    void whenIncrementIsGreatherThanMaxThenThrowException() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
 
         int quantityToIncrement = 80;
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), quantityToIncrement)).thenThrow(CoffeeStockExceededException.class);
+
         assertThrows(CoffeeStockExceededException.class, () -> coffeeService.increment(expectedCoffeeDTO.getId(), quantityToIncrement));
     }
 
     @Test
-    void whenIncrementAfterSumIsGreatherThanMaxThenThrowException() {
+    void whenIncrementAfterSumIsGreatherThanMaxThenThrowException() throws CoffeeNotFoundException, CoffeeStockExceededException {
         CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
-        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
-
-        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
 
         int quantityToIncrement = 45;
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), quantityToIncrement)).thenThrow(CoffeeStockExceededException.class);
+
         assertThrows(CoffeeStockExceededException.class, () -> coffeeService.increment(expectedCoffeeDTO.getId(), quantityToIncrement));
     }
 
     @Test
-    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() throws CoffeeNotFoundException, CoffeeStockExceededException {
         int quantityToIncrement = 10;
 
-        when(coffeeRepository.findById(INVALID_COFFEE_ID)).thenReturn(Optional.empty());
+        when(coffeeStockLedger.increment(INVALID_COFFEE_ID, quantityToIncrement)).thenThrow(CoffeeNotFoundException.class);
 
         assertThrows(CoffeeNotFoundException.class, () -> coffeeService.increment(INVALID_COFFEE_ID, quantityToIncrement));
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenIncrementAllIsCalledThenEachIncrementReportsItsOwnResult() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeIncrementDTO validIncrement = CoffeeIncrementDTO.builder().id(expectedCoffeeDTO.getId()).quantity(10).build();
+        CoffeeIncrementDTO exceedingIncrement = CoffeeIncrementDTO.builder().id(expectedCoffeeDTO.getId()).quantity(45).build();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() + 10).build().toCoffeeDTO();
+
+        // when
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 45)).thenThrow(new CoffeeStockExceededException(expectedCoffeeDTO.getId(), 45));
+
+        // then
+        List<CoffeeIncrementResultDTO> results = coffeeService.incrementAll(Arrays.asList(validIncrement, exceedingIncrement));
+
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(0).getQuantity(), is(equalTo(incrementedCoffeeDTO.getQuantity())));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(results.get(1).getError(), is(notNullValue()));
+        verify(coffeeStockLedger, times(1)).preload(Collections.singleton(expectedCoffeeDTO.getId()));
+        verify(coffeeStockLedger, times(1)).flush(Collections.singleton(expectedCoffeeDTO.getId()));
+    }
+
+    @Test
+    void whenIncrementAllCannotBeFlushedThenAppliedIncrementsAreUndoneAndReportedAsFailed() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeIncrementDTO validIncrement = CoffeeIncrementDTO.builder().id(expectedCoffeeDTO.getId()).quantity(10).build();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() + 10).build().toCoffeeDTO();
+
+        // when
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+        doThrow(new DataIntegrityViolationException("database unavailable"))
+                .when(coffeeStockLedger).flush(Collections.singleton(expectedCoffeeDTO.getId()));
+
+        // then
+        List<CoffeeIncrementResultDTO> results = coffeeService.incrementAll(Collections.singletonList(validIncrement));
+
+        assertThat(results.get(0).isSuccess(), is(false));
+        assertThat(results.get(0).getQuantity(), is(nullValue()));
+        assertThat(results.get(0).getError(), is(notNullValue()));
+        verify(coffeeStockLedger).increment(expectedCoffeeDTO.getId(), -10);
+        verify(eventPublisher, never()).publishEvent(Mockito.<Object>any());
+    }
+
+    @Test
+    void whenAnIncrementOfAFailedBatchCannotBeUndoneThenItIsKeptAndReported() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeInsufficientStockException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeIncrementDTO validIncrement = CoffeeIncrementDTO.builder().id(expectedCoffeeDTO.getId()).quantity(10).build();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() + 10).build().toCoffeeDTO();
+
+        // when
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+        doThrow(new DataIntegrityViolationException("database unavailable"))
+                .when(coffeeStockLedger).flush(Collections.singleton(expectedCoffeeDTO.getId()));
+        doThrow(new CoffeeInsufficientStockException(expectedCoffeeDTO.getId(), 10))
+                .when(coffeeStockHolds).hold(expectedCoffeeDTO.getId(), 10);
+
+        // then
+        List<CoffeeIncrementResultDTO> results = coffeeService.incrementAll(Collections.singletonList(validIncrement));
+
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(0).getQuantity(), is(equalTo(incrementedCoffeeDTO.getQuantity())));
+        assertThat(results.get(0).getError(), is(notNullValue()));
+        verify(coffeeStockLedger, never()).increment(expectedCoffeeDTO.getId(), -10);
+        verify(coffeeStockHolds, never()).release(expectedCoffeeDTO.getId(), 10);
+        verify(eventPublisher).publishEvent(Mockito.<Object>any());
+    }
+
+    @Test
+    void whenIncrementAllHasANullIncrementThenItIsReportedAsInvalid() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        // given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeIncrementDTO validIncrement = CoffeeIncrementDTO.builder().id(expectedCoffeeDTO.getId()).quantity(10).build();
+        CoffeeDTO incrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() + 10).build().toCoffeeDTO();
+
+        // when
+        when(coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 10)).thenReturn(incrementedCoffeeDTO);
+
+        // then
+        List<CoffeeIncrementResultDTO> results = coffeeService.incrementAll(Arrays.asList(null, validIncrement));
+
+        assertThat(results.get(0).isSuccess(), is(false));
+        assertThat(results.get(0).getError(), is(notNullValue()));
+        assertThat(results.get(1).isSuccess(), is(true));
+        verify(eventPublisher).publishEvent(Mockito.<Object>any());
+    }
+
+    @Test
+    void whenDecrementIsCalledThenDecrementCoffeeStock() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        //given
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        int quantityToDecrement = 5;
+        CoffeeDTO decrementedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(expectedCoffeeDTO.getQuantity() - quantityToDecrement).build().toCoffeeDTO();
+
+        //when
+        when(coffeeStockLedger.decrement(expectedCoffeeDTO.getId(), quantityToDecrement)).thenReturn(decrementedCoffeeDTO);
+
+        //then
+        CoffeeDTO resultCoffeeDTO = coffeeService.decrement(expectedCoffeeDTO.getId(), quantityToDecrement);
+
+        assertThat(resultCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() - quantityToDecrement)));
+        verify(coffeeStockLedger, never()).evict(expectedCoffeeDTO.getId());
+        verify(coffeeRepository, never()).findById(expectedCoffeeDTO.getId());
+        verify(coffeeStockHolds).hold(expectedCoffeeDTO.getId(), quantityToDecrement);
+        verify(coffeeStockHolds).release(expectedCoffeeDTO.getId(), quantityToDecrement);
+    }
+
+    @Test
+    void whenDecrementExceedsTheStockNotHeldThenRepositoryIsNotCalled() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        int quantityToDecrement = 5;
+
+        doThrow(new CoffeeInsufficientStockException(expectedCoffeeDTO.getId(), quantityToDecrement))
+                .when(coffeeStockHolds).hold(expectedCoffeeDTO.getId(), quantityToDecrement);
+
+        assertThrows(CoffeeInsufficientStockException.class, () -> coffeeService.decrement(expectedCoffeeDTO.getId(), quantityToDecrement));
+        verify(coffeeStockLedger, never()).decrement(expectedCoffeeDTO.getId(), quantityToDecrement);
+        verify(coffeeStockHolds, never()).release(expectedCoffeeDTO.getId(), quantityToDecrement);
+    }
+
+    @Test
+    void whenDecrementIsNegativeOrZeroThenThrowExceptionWithoutHoldingStock() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        assertThrows(IllegalArgumentException.class, () -> coffeeService.decrement(expectedCoffeeDTO.getId(), -50));
+        assertThrows(IllegalArgumentException.class, () -> coffeeService.decrement(expectedCoffeeDTO.getId(), 0));
+        verify(coffeeStockHolds, never()).hold(eq(expectedCoffeeDTO.getId()), anyInt());
+        verify(coffeeStockLedger, never()).decrement(eq(expectedCoffeeDTO.getId()), anyInt());
+    }
+
+    @Test
+    void whenDecrementIsGreatherThanStockThenThrowException() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        int quantityToDecrement = 20;
+
+        when(coffeeStockLedger.decrement(expectedCoffeeDTO.getId(), quantityToDecrement))
+                .thenThrow(new CoffeeInsufficientStockException(expectedCoffeeDTO.getId(), quantityToDecrement));
+
+        assertThrows(CoffeeInsufficientStockException.class, () -> coffeeService.decrement(expectedCoffeeDTO.getId(), quantityToDecrement));
+    }
+
+    @Test
+    void whenDecrementIsCalledWithInvalidIdThenThrowException() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        int quantityToDecrement = 10;
+
+        when(coffeeStockLedger.decrement(INVALID_COFFEE_ID, quantityToDecrement)).thenThrow(new CoffeeNotFoundException(INVALID_COFFEE_ID));
+
+        assertThrows(CoffeeNotFoundException.class, () -> coffeeService.decrement(INVALID_COFFEE_ID, quantityToDecrement));
+    }
+}
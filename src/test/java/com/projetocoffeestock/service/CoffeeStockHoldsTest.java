@@ -0,0 +1,114 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeAvailabilityDTO;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeStockHoldsTest {
+
+    @Mock
+    private CoffeeStockLedger coffeeStockLedger;
+
+    private CoffeeStockHolds coffeeStockHolds;
+
+    private CoffeeDTO coffeeDTO;
+
+    @BeforeEach
+    void setUp() throws CoffeeNotFoundException {
+        coffeeStockHolds = new CoffeeStockHolds(coffeeStockLedger);
+        coffeeDTO = CoffeeDTOBuilder.builder().quantity(10).build().toCoffeeDTO();
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(coffeeDTO);
+    }
+
+    @Test
+    void whenHoldsExceedTheStockThenHoldIsRejected() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        // given
+        coffeeStockHolds.hold(coffeeDTO.getId(), 6);
+
+        // then
+        assertThrows(CoffeeInsufficientStockException.class, () -> coffeeStockHolds.hold(coffeeDTO.getId(), 5));
+        CoffeeAvailabilityDTO availability = coffeeStockHolds.availabilityOf(coffeeDTO.getId());
+        assertThat(availability.getHeld(), is(equalTo(6)));
+        assertThat(availability.getAvailable(), is(equalTo(4)));
+    }
+
+    @Test
+    void whenHoldIsReleasedThenItsUnitsCanBeHeldAgain() throws CoffeeNotFoundException, CoffeeInsufficientStockException {
+        // given
+        coffeeStockHolds.hold(coffeeDTO.getId(), 10);
+
+        // when
+        coffeeStockHolds.release(coffeeDTO.getId(), 10);
+        coffeeStockHolds.hold(coffeeDTO.getId(), 10);
+
+        // then
+        assertThat(coffeeStockHolds.heldOf(coffeeDTO.getId()), is(equalTo(10)));
+    }
+
+    @Test
+    void whenHoldsAndDecrementsRaceThenNoMoreUnitsAreTakenThanTheStockHad() throws CoffeeNotFoundException, InterruptedException {
+        // given
+        AtomicInteger stock = new AtomicInteger(coffeeDTO.getQuantity());
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenAnswer(invocation -> CoffeeDTOBuilder.builder()
+                .quantity(stock.get())
+                .build()
+                .toCoffeeDTO());
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger decremented = new AtomicInteger();
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // when
+        for (int caller = 0; caller < callers; caller++) {
+            boolean reserving = caller % 2 == 0;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int attempt = 0; attempt < 10; attempt++) {
+                        coffeeStockHolds.hold(coffeeDTO.getId(), 1);
+                        if (reserving) {
+                            reserved.incrementAndGet();
+                        } else {
+                            stock.decrementAndGet();
+                            decremented.incrementAndGet();
+                            coffeeStockHolds.release(coffeeDTO.getId(), 1);
+                        }
+                    }
+                } catch (CoffeeNotFoundException | CoffeeInsufficientStockException e) {
+                    // the stock ran out for this caller
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(reserved.get() + decremented.get(), is(equalTo(coffeeDTO.getQuantity())));
+        assertThat(stock.get(), is(equalTo(reserved.get())));
+        assertThat(coffeeStockHolds.heldOf(coffeeDTO.getId()), is(equalTo(reserved.get())));
+    }
+}
@@ -0,0 +1,364 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.exception.CoffeeInsufficientStockException;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.exception.CoffeeStockExceededException;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.exception.CoffeeVersionMismatchException;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.StockChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CoffeeStockLedgerTest {
+
+    private static final long INVALID_COFFEE_ID = 2L;
+
+    @Mock
+    private CoffeeRepository coffeeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+
+    private CoffeeStockLedger coffeeStockLedger;
+
+    @BeforeEach
+    void setUp() {
+        coffeeStockLedger = ledger(true, 60_000, 10_000);
+    }
+
+    private CoffeeStockLedger ledger(boolean writeBehind, long maxLagMillis, int maxPending) {
+        return ledger(writeBehind, maxLagMillis, maxPending, 100);
+    }
+
+    private CoffeeStockLedger ledger(boolean writeBehind, long maxLagMillis, int maxPending, int inlineFlushBatch) {
+        return new CoffeeStockLedger(coffeeRepository, new TransactionTemplate(transactionManager), writeBehind, maxLagMillis, maxPending, inlineFlushBatch, true);
+    }
+
+    @Test
+    void whenIncrementIsCalledThenQuantityIsUpdatedWithoutSaving() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+        CoffeeDTO incrementedCoffeeDTO = coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 10);
+
+        assertThat(incrementedCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() + 15)));
+        assertThat(incrementedCoffeeDTO.getName(), is(equalTo(expectedCoffeeDTO.getName())));
+        verify(coffeeRepository, times(1)).findById(expectedCoffeeDTO.getId());
+        verify(coffeeRepository, never()).save(expectedCoffee);
+    }
+
+    @Test
+    void whenIncrementAfterSumIsGreatherThanMaxThenThrowException() {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        int quantityToIncrement = 45;
+        assertThrows(CoffeeStockExceededException.class, () -> coffeeStockLedger.increment(expectedCoffeeDTO.getId(), quantityToIncrement));
+    }
+
+    @Test
+    void whenIncrementIsCalledWithInvalidIdThenThrowException() {
+        when(coffeeRepository.findById(INVALID_COFFEE_ID)).thenReturn(Optional.empty());
+
+        assertThrows(CoffeeNotFoundException.class, () -> coffeeStockLedger.increment(INVALID_COFFEE_ID, 10));
+    }
+
+    @Test
+    void whenIncrementTakesTheQuantityBelowZeroThenThrowException() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(0).build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        assertThrows(CoffeeStockExceededException.class, () -> coffeeStockLedger.increment(expectedCoffeeDTO.getId(), -1));
+        assertThat(coffeeStockLedger.current(expectedCoffeeDTO.getId()).getQuantity(), is(equalTo(0)));
+    }
+
+    @Test
+    void whenPreloadIsCalledThenCoffeesAreLoadedInASingleQuery() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        Coffee firstCoffee = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(1L).name("Melitta").build().toCoffeeDTO());
+        Coffee secondCoffee = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(2L).name("Baggio").build().toCoffeeDTO());
+
+        when(coffeeRepository.findAllById(anyList())).thenReturn(Arrays.asList(firstCoffee, secondCoffee));
+
+        coffeeStockLedger.preload(Arrays.asList(1L, 2L));
+        coffeeStockLedger.increment(1L, 5);
+        coffeeStockLedger.increment(2L, 5);
+        coffeeStockLedger.preload(Arrays.asList(1L, 2L));
+
+        verify(coffeeRepository, times(1)).findAllById(anyList());
+        verify(coffeeRepository, never()).findById(1L);
+        verify(coffeeRepository, never()).findById(2L);
+    }
+
+    @Test
+    void whenFlushIsCalledThenPendingDeltasAreWrittenOnce() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 7);
+        coffeeStockLedger.flush();
+        coffeeStockLedger.flush();
+
+        verify(coffeeRepository, times(1)).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(12, 2)));
+    }
+
+    @Test
+    void whenFlushFailsThenPendingDeltasAreKeptForTheNextFlush() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+        doThrow(IllegalStateException.class)
+                .doNothing()
+                .when(coffeeRepository).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(5, 1)));
+
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+        assertThrows(IllegalStateException.class, () -> coffeeStockLedger.flush());
+        coffeeStockLedger.flush();
+
+        verify(coffeeRepository, times(2)).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(5, 1)));
+    }
+
+    @Test
+    void whenEvictIsCalledThenPendingDeltasAreWrittenAndTheCoffeeIsReloaded() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+        coffeeStockLedger.evict(expectedCoffeeDTO.getId());
+        coffeeStockLedger.current(expectedCoffeeDTO.getId());
+
+        verify(coffeeRepository, times(1)).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(5, 1)));
+        verify(coffeeRepository, times(2)).findById(expectedCoffeeDTO.getId());
+    }
+
+    @Test
+    void whenDecrementIsCalledThenPendingDeltasAreWrittenFirstAndTheSlotIsMovedWithoutReload() throws CoffeeNotFoundException, CoffeeStockExceededException, CoffeeInsufficientStockException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+        when(coffeeRepository.decrementQuantity(expectedCoffeeDTO.getId(), 3)).thenReturn(1);
+
+        CoffeeDTO incrementedCoffeeDTO = coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+        CoffeeDTO decrementedCoffeeDTO = coffeeStockLedger.decrement(expectedCoffeeDTO.getId(), 3);
+        coffeeStockLedger.flush();
+
+        assertThat(decrementedCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() + 2)));
+        assertThat(decrementedCoffeeDTO.getVersion(), is(equalTo(incrementedCoffeeDTO.getVersion() + 1)));
+        verify(coffeeRepository, times(1)).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(5, 1)));
+        verify(coffeeRepository, times(1)).findById(expectedCoffeeDTO.getId());
+    }
+
+    @Test
+    void whenDecrementIsGreaterThanStockThenThrowException() {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        when(coffeeRepository.decrementQuantity(expectedCoffeeDTO.getId(), 20)).thenReturn(0);
+        when(coffeeRepository.existsById(expectedCoffeeDTO.getId())).thenReturn(true);
+
+        assertThrows(CoffeeInsufficientStockException.class, () -> coffeeStockLedger.decrement(expectedCoffeeDTO.getId(), 20));
+    }
+
+    @Test
+    void whenDecrementIsCalledWithInvalidIdThenThrowException() {
+        when(coffeeRepository.decrementQuantity(INVALID_COFFEE_ID, 10)).thenReturn(0);
+        when(coffeeRepository.existsById(INVALID_COFFEE_ID)).thenReturn(false);
+
+        assertThrows(CoffeeNotFoundException.class, () -> coffeeStockLedger.decrement(INVALID_COFFEE_ID, 10));
+    }
+
+    @Test
+    void whenMaxPendingIsReachedThenIncrementFlushesInline() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+        coffeeStockLedger = ledger(true, 60_000, 1);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+
+        verify(coffeeRepository, times(1)).addToQuantities(Collections.singletonMap(expectedCoffeeDTO.getId(), new StockChange(5, 1)));
+    }
+
+    @Test
+    void whenMaxPendingIsReachedThenTheInlineFlushIsBoundedToOneBatch() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        coffeeStockLedger = ledger(true, 60_000, 3, 2);
+        List<Coffee> coffees = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            coffees.add(coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(id).name("Coffee " + id).build().toCoffeeDTO()));
+        }
+        List<Map<Long, StockChange>> flushedBatches = new ArrayList<>();
+
+        when(coffeeRepository.findAllById(anyList())).thenReturn(coffees);
+        doAnswer(invocation -> flushedBatches.add(invocation.getArgument(0)))
+                .when(coffeeRepository).addToQuantities(anyMap());
+
+        coffeeStockLedger.preload(Arrays.asList(1L, 2L, 3L));
+        coffeeStockLedger.increment(1L, 5);
+        coffeeStockLedger.increment(2L, 5);
+        coffeeStockLedger.increment(3L, 5);
+
+        assertThat(flushedBatches.size(), is(equalTo(1)));
+        assertThat(flushedBatches.get(0).size(), is(equalTo(2)));
+    }
+
+    @Test
+    void whenWriteBehindIsDisabledThenIncrementIsAConditionalUpdate() throws CoffeeNotFoundException, CoffeeStockExceededException {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee incrementedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+        incrementedCoffee.setQuantity(expectedCoffeeDTO.getQuantity() + 5);
+        coffeeStockLedger = ledger(false, 60_000, 10_000);
+
+        when(coffeeRepository.incrementQuantity(expectedCoffeeDTO.getId(), 5)).thenReturn(1);
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(incrementedCoffee));
+
+        CoffeeDTO incrementedCoffeeDTO = coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5);
+
+        assertThat(incrementedCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() + 5)));
+        verify(coffeeRepository, never()).addToQuantities(anyMap());
+    }
+
+    @Test
+    void whenWriteBehindIsDisabledAndMaxIsExceededThenThrowException() {
+        coffeeStockLedger = ledger(false, 60_000, 10_000);
+
+        when(coffeeRepository.incrementQuantity(INVALID_COFFEE_ID, 50)).thenReturn(0);
+        when(coffeeRepository.existsById(INVALID_COFFEE_ID)).thenReturn(true);
+
+        assertThrows(CoffeeStockExceededException.class, () -> coffeeStockLedger.increment(INVALID_COFFEE_ID, 50));
+    }
+
+    @Test
+    void whenManyThreadsIncrementTheSameCoffeeThenNoUpdateIsLostAndMaxIsNeverExceeded() throws Exception {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().max(500).quantity(0).build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+        AtomicInteger persistedQuantity = new AtomicInteger();
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+        doAnswer(invocation -> {
+            Map<Long, StockChange> changesById = invocation.getArgument(0);
+            return persistedQuantity.addAndGet(changesById.get(expectedCoffeeDTO.getId()).getQuantity());
+        }).when(coffeeRepository).addToQuantities(anyMap());
+
+        int threads = 16;
+        int incrementsPerThread = 1_000;
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    try {
+                        coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 1);
+                        succeeded.incrementAndGet();
+                    } catch (CoffeeStockExceededException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> flusher = executor.submit(() -> {
+            start.await();
+            while (succeeded.get() + rejected.get() < threads * incrementsPerThread) {
+                coffeeStockLedger.flush();
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        flusher.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        coffeeStockLedger.flush();
+
+        CoffeeDTO currentCoffeeDTO = coffeeMapper.toDTO(expectedCoffee);
+        coffeeStockLedger.applyTo(currentCoffeeDTO);
+
+        assertThat(succeeded.get(), is(equalTo(expectedCoffeeDTO.getMax())));
+        assertThat(rejected.get(), is(equalTo(threads * incrementsPerThread - expectedCoffeeDTO.getMax())));
+        assertThat(currentCoffeeDTO.getQuantity(), is(equalTo(expectedCoffeeDTO.getMax())));
+        assertThat(persistedQuantity.get(), is(equalTo(expectedCoffeeDTO.getMax())));
+    }
+
+    @Test
+    void whenIncrementIsCalledWithTheCurrentVersionThenItIsAppliedAndTheVersionMoves() throws Exception {
+        CoffeeDTO expectedCoffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        Coffee expectedCoffee = coffeeMapper.toModel(expectedCoffeeDTO);
+        expectedCoffee.setVersion(3L);
+
+        when(coffeeRepository.findById(expectedCoffeeDTO.getId())).thenReturn(Optional.of(expectedCoffee));
+
+        CoffeeDTO incrementedCoffeeDTO = coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5, 3L);
+
+        assertThat(incrementedCoffeeDTO.getVersion(), is(equalTo(4L)));
+        assertThrows(CoffeeVersionMismatchException.class, () -> coffeeStockLedger.increment(expectedCoffeeDTO.getId(), 5, 3L));
+        assertThat(coffeeStockLedger.current(expectedCoffeeDTO.getId()).getQuantity(), is(equalTo(expectedCoffeeDTO.getQuantity() + 5)));
+    }
+
+    @Test
+    void whenWriteBehindIsDisabledAndTheVersionChangedThenThrowMismatch() {
+        coffeeStockLedger = ledger(false, 60_000, 10_000);
+
+        when(coffeeRepository.incrementQuantity(INVALID_COFFEE_ID, 5, 3L)).thenReturn(0);
+        when(coffeeRepository.existsById(INVALID_COFFEE_ID)).thenReturn(true);
+        when(coffeeRepository.existsByIdAndVersion(INVALID_COFFEE_ID, 3L)).thenReturn(false);
+
+        assertThrows(CoffeeVersionMismatchException.class, () -> coffeeStockLedger.increment(INVALID_COFFEE_ID, 5, 3L));
+    }
+}
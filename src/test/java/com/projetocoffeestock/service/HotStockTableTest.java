@@ -0,0 +1,93 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HotStockTableTest {
+
+    @Mock
+    private CoffeeRepository coffeeRepository;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private CoffeeStockLedger coffeeStockLedger;
+
+    private HotStockTable hotStockTable;
+
+    private CoffeeDTO coffeeDTO;
+
+    @BeforeEach
+    void setUp() {
+        hotStockTable = new HotStockTable(coffeeRepository, stockMovementRepository, coffeeStockLedger, true, 10);
+        coffeeDTO = CoffeeDTOBuilder.builder().quantity(10).build().toCoffeeDTO();
+        coffeeDTO.setVersion(3L);
+        Coffee coffee = CoffeeMapper.INSTANCE.toModel(coffeeDTO);
+        coffee.setVersion(3L);
+        List<Coffee> coffees = Collections.singletonList(coffee);
+        when(stockMovementRepository.findMostMovedCoffeeIds(PageRequest.of(0, 10))).thenReturn(Collections.singletonList(coffee.getId()));
+        when(coffeeRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10))).thenReturn(coffees);
+        when(coffeeRepository.findAllById(new LinkedHashSet<>(Collections.singletonList(coffee.getId())))).thenReturn(coffees);
+        hotStockTable.rebuild();
+    }
+
+    @Test
+    void whenTableIsBuiltThenCoffeeIsFoundByNameAndViewIsReused() {
+        CoffeeDTO foundCoffeeDTO = hotStockTable.findByName(coffeeDTO.getName());
+
+        assertThat(foundCoffeeDTO, is(equalTo(coffeeDTO)));
+        assertThat(hotStockTable.findByName(coffeeDTO.getName()), is(sameInstance(foundCoffeeDTO)));
+        assertThat(hotStockTable.findByName("unknown"), is(nullValue()));
+    }
+
+    @Test
+    void whenStockEventsArriveOutOfOrderThenOnlyTheNewestIsKept() {
+        // when
+        hotStockTable.onStockChanged(changed(15, 5L));
+        hotStockTable.onStockChanged(changed(12, 4L));
+
+        // then
+        CoffeeDTO foundCoffeeDTO = hotStockTable.findByName(coffeeDTO.getName());
+        assertThat(foundCoffeeDTO.getQuantity(), is(equalTo(15)));
+        assertThat(foundCoffeeDTO.getVersion(), is(equalTo(5L)));
+    }
+
+    @Test
+    void whenCoffeeIsDeletedThenItIsNoLongerServed() {
+        hotStockTable.onDeleted(new CoffeeDeletedEvent(coffeeDTO));
+
+        assertThat(hotStockTable.findByName(coffeeDTO.getName()), is(nullValue()));
+    }
+
+    private CoffeeStockChangedEvent changed(int quantity, long version) {
+        CoffeeDTO changedCoffeeDTO = CoffeeDTOBuilder.builder().quantity(quantity).build().toCoffeeDTO();
+        changedCoffeeDTO.setVersion(version);
+        return new CoffeeStockChangedEvent(changedCoffeeDTO, 0, StockMovementReason.INCREMENT);
+    }
+}
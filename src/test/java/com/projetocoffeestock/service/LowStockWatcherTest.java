@@ -0,0 +1,99 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.event.LowStockAlertEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class LowStockWatcherTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private LowStockWatcher lowStockWatcher;
+
+    @BeforeEach
+    void setUp() {
+        lowStockWatcher = new LowStockWatcher(eventPublisher, 10);
+    }
+
+    @Test
+    void whenStockCrossesTheThresholdThenAnAlertIsPublishedOncePerCrossing() {
+        lowStockWatcher.onStockChanged(changed(50));
+        lowStockWatcher.onStockChanged(changed(5));
+        lowStockWatcher.onStockChanged(changed(3));
+        lowStockWatcher.onStockChanged(changed(30));
+
+        ArgumentCaptor<LowStockAlertEvent> alertCaptor = ArgumentCaptor.forClass(LowStockAlertEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(alertCaptor.capture());
+        List<LowStockAlertEvent> alerts = alertCaptor.getAllValues();
+        assertThat(alerts.get(0).getAlert().isLow(), is(true));
+        assertThat(alerts.get(0).getAlert().getQuantity(), is(equalTo(5)));
+        assertThat(alerts.get(1).getAlert().isLow(), is(false));
+        assertThat(alerts.get(1).getAlert().getQuantity(), is(equalTo(30)));
+    }
+
+    @Test
+    void whenAnOlderChangeArrivesAfterANewerOneThenItDoesNotFlipTheState() {
+        lowStockWatcher.onStockChanged(changed(50, 1L));
+        lowStockWatcher.onStockChanged(changed(5, 3L));
+        lowStockWatcher.onStockChanged(changed(40, 2L));
+        lowStockWatcher.onStockChanged(changed(4, 4L));
+
+        ArgumentCaptor<LowStockAlertEvent> alertCaptor = ArgumentCaptor.forClass(LowStockAlertEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(alertCaptor.capture());
+        assertThat(alertCaptor.getValue().getAlert().isLow(), is(true));
+        assertThat(alertCaptor.getValue().getAlert().getVersion(), is(equalTo(3L)));
+    }
+
+    @Test
+    void whenStockStaysAboveTheThresholdThenNoAlertIsPublished() {
+        lowStockWatcher.onStockChanged(changed(50));
+        lowStockWatcher.onStockChanged(changed(20));
+
+        verify(eventPublisher, never()).publishEvent(any(LowStockAlertEvent.class));
+    }
+
+    @Test
+    void whenCoffeeThresholdIsSetThenItOverridesTheTypeThreshold() {
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        lowStockWatcher.setTypeThreshold(coffeeDTO.getType(), 40);
+        assertThat(lowStockWatcher.thresholdFor(coffeeDTO), is(equalTo(40)));
+
+        lowStockWatcher.setCoffeeThreshold(coffeeDTO.getId(), 25);
+        assertThat(lowStockWatcher.thresholdFor(coffeeDTO), is(equalTo(25)));
+
+        CoffeeDTO otherTypeCoffeeDTO = CoffeeDTOBuilder.builder().id(2L).type(CoffeeType.DUTRA).build().toCoffeeDTO();
+        assertThat(lowStockWatcher.thresholdFor(otherTypeCoffeeDTO), is(equalTo(10)));
+    }
+
+    private static CoffeeStockChangedEvent changed(int quantity) {
+        return changed(quantity, null);
+    }
+
+    private static CoffeeStockChangedEvent changed(int quantity, Long version) {
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().max(100).quantity(quantity).build().toCoffeeDTO();
+        coffeeDTO.setVersion(version);
+        return new CoffeeStockChangedEvent(coffeeDTO, 0, StockMovementReason.INCREMENT);
+    }
+}
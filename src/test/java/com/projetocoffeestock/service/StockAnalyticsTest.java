@@ -0,0 +1,144 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.dto.StockAnalyticsDTO;
+import com.projetocoffeestock.dto.StockGroupDTO;
+import com.projetocoffeestock.entity.Coffee;
+import com.projetocoffeestock.enums.CoffeeType;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeDeletedEvent;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.event.LowStockThresholdChangedEvent;
+import com.projetocoffeestock.mapper.CoffeeMapper;
+import com.projetocoffeestock.repository.CoffeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAnalyticsTest {
+
+    @Mock
+    private CoffeeRepository coffeeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CoffeeMapper coffeeMapper = CoffeeMapper.INSTANCE;
+
+    private StockAnalytics stockAnalytics;
+
+    @BeforeEach
+    void setUp() {
+        stockAnalytics = new StockAnalytics(coffeeRepository, new LowStockWatcher(eventPublisher, 10));
+    }
+
+    @Test
+    void whenCatalogIsLoadedThenTotalsAreGroupedByTypeAndBrand() {
+        // given
+        Coffee melitta = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(1L).max(50).quantity(50).build().toCoffeeDTO());
+        Coffee dutra = coffeeMapper.toModel(CoffeeDTOBuilder.builder().id(2L).name("Dutra").brand("Dutra").max(100).quantity(5).type(CoffeeType.DUTRA).build().toCoffeeDTO());
+        when(coffeeRepository.findAll()).thenReturn(Arrays.asList(melitta, dutra));
+
+        // when
+        stockAnalytics.warmUp();
+        StockAnalyticsDTO analytics = stockAnalytics.snapshot();
+
+        // then
+        StockGroupDTO total = analytics.getTotal();
+        assertThat(total.getCoffees(), is(equalTo(2L)));
+        assertThat(total.getQuantity(), is(equalTo(55L)));
+        assertThat(total.getUtilization(), is(closeTo(55.0 / 150, 1e-9)));
+        assertThat(total.getLowItems(), is(equalTo(1L)));
+        assertThat(total.getFullItems(), is(equalTo(1L)));
+        assertThat(analytics.getByType().size(), is(equalTo(2)));
+        assertThat(analytics.getByBrand().get(0).getGroup(), is(equalTo("Dutra")));
+        assertThat(analytics.getByBrand().get(0).getLowItems(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenACreationEventArrivesAfterTheWarmUpSeededTheCoffeeThenItsStockIsCountedOnce() {
+        // given
+        CoffeeDTO created = CoffeeDTOBuilder.builder().max(100).quantity(40).build().toCoffeeDTO();
+        when(coffeeRepository.findAll()).thenReturn(Arrays.asList(coffeeMapper.toModel(created)));
+        stockAnalytics.warmUp();
+
+        // when
+        stockAnalytics.onStockChanged(new CoffeeStockChangedEvent(created, 40, StockMovementReason.CREATED));
+        StockAnalyticsDTO analytics = stockAnalytics.snapshot();
+
+        // then
+        assertThat(analytics.getTotal().getCoffees(), is(equalTo(1L)));
+        assertThat(analytics.getTotal().getQuantity(), is(equalTo(40L)));
+    }
+
+    @Test
+    void whenStockChangesThenOnlyTheTouchedCoffeeMovesBetweenCounters() {
+        // given
+        CoffeeDTO created = CoffeeDTOBuilder.builder().max(100).quantity(5).build().toCoffeeDTO();
+        CoffeeDTO incremented = CoffeeDTOBuilder.builder().max(100).quantity(100).build().toCoffeeDTO();
+
+        // when
+        stockAnalytics.onStockChanged(new CoffeeStockChangedEvent(created, 5, StockMovementReason.CREATED));
+        stockAnalytics.onStockChanged(new CoffeeStockChangedEvent(incremented, 95, StockMovementReason.INCREMENT));
+
+        // then
+        StockGroupDTO total = stockAnalytics.snapshot().getTotal();
+        assertThat(total.getQuantity(), is(equalTo(100L)));
+        assertThat(total.getLowItems(), is(equalTo(0L)));
+        assertThat(total.getFullItems(), is(equalTo(1L)));
+    }
+
+    @Test
+    void whenTheThresholdChangesThenLowItemsAreRecomputed() {
+        // given
+        LowStockWatcher lowStockWatcher = new LowStockWatcher(eventPublisher, 10);
+        stockAnalytics = new StockAnalytics(coffeeRepository, lowStockWatcher);
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().max(100).quantity(30).build().toCoffeeDTO();
+        stockAnalytics.onStockChanged(new CoffeeStockChangedEvent(coffeeDTO, 30, StockMovementReason.CREATED));
+
+        // when
+        lowStockWatcher.setTypeThreshold(coffeeDTO.getType(), 40);
+        stockAnalytics.onThresholdChanged(new LowStockThresholdChangedEvent(coffeeDTO.getType(), null));
+
+        // then
+        assertThat(stockAnalytics.snapshot().getTotal().getLowItems(), is(equalTo(1L)));
+
+        // when
+        lowStockWatcher.setCoffeeThreshold(coffeeDTO.getId(), 20);
+        stockAnalytics.onThresholdChanged(new LowStockThresholdChangedEvent(null, coffeeDTO.getId()));
+
+        // then
+        assertThat(stockAnalytics.snapshot().getTotal().getLowItems(), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenCoffeeIsDeletedThenItsGroupsDisappear() {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        stockAnalytics.onStockChanged(new CoffeeStockChangedEvent(coffeeDTO, coffeeDTO.getQuantity(), StockMovementReason.CREATED));
+
+        // when
+        stockAnalytics.onDeleted(new CoffeeDeletedEvent(coffeeDTO));
+
+        // then
+        StockAnalyticsDTO analytics = stockAnalytics.snapshot();
+        assertThat(analytics.getTotal().getCoffees(), is(equalTo(0L)));
+        assertThat(analytics.getTotal().getQuantity(), is(equalTo(0L)));
+        assertThat(analytics.getByType(), is(empty()));
+        assertThat(analytics.getByBrand(), is(empty()));
+    }
+}
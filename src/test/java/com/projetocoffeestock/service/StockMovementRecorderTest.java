@@ -0,0 +1,207 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.builder.CoffeeDTOBuilder;
+import com.projetocoffeestock.dto.CoffeeDTO;
+import com.projetocoffeestock.entity.StockMovement;
+import com.projetocoffeestock.entity.StockSnapshot;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.event.CoffeeStockChangedEvent;
+import com.projetocoffeestock.exception.CoffeeNotFoundException;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import com.projetocoffeestock.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockMovementRecorderTest {
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private CoffeeStockLedger coffeeStockLedger;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<StockMovement> savedMovements = new ArrayList<>();
+    private final List<StockSnapshot> savedSnapshots = new ArrayList<>();
+
+    private StockMovementRecorder stockMovementRecorder;
+
+    @BeforeEach
+    void setUp() {
+        stockMovementRecorder = new StockMovementRecorder(stockMovementRepository, stockSnapshotRepository, coffeeStockLedger,
+                new TransactionTemplate(transactionManager), 10000, 3);
+    }
+
+    @Test
+    void whenStockChangesAreFlushedThenMovementsAreAppendedInOrderWithAnOpeningSnapshot() {
+        // given
+        givenRepositoriesRecordWhatIsSaved();
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+
+        // when
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 10, 10, StockMovementReason.CREATED));
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 15, 5, StockMovementReason.INCREMENT));
+        stockMovementRecorder.flush();
+
+        // then
+        assertThat(savedMovements.size(), is(equalTo(2)));
+        assertThat(savedMovements.get(0).getReason(), is(StockMovementReason.CREATED));
+        assertThat(savedMovements.get(1).getDelta(), is(equalTo(5)));
+        assertThat(savedSnapshots.size(), is(equalTo(1)));
+        assertThat(savedSnapshots.get(0).getLastMovementId(), is(equalTo(0L)));
+        assertThat(savedSnapshots.get(0).getQuantity(), is(equalTo(0L)));
+    }
+
+    @Test
+    void whenEnoughMovementsAreAppendedThenASnapshotOfTheRunningQuantityIsTaken() throws CoffeeNotFoundException {
+        // given
+        givenRepositoriesRecordWhatIsSaved();
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(CoffeeDTOBuilder.builder().quantity(20).build().toCoffeeDTO());
+
+        // when
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 20, 5, StockMovementReason.INCREMENT));
+        stockMovementRecorder.flush();
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 25, 5, StockMovementReason.INCREMENT));
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 22, -3, StockMovementReason.DECREMENT));
+        stockMovementRecorder.flush();
+
+        // then
+        assertThat(savedSnapshots.size(), is(equalTo(2)));
+        StockSnapshot snapshot = savedSnapshots.get(1);
+        assertThat(snapshot.getQuantity(), is(equalTo(22L)));
+        assertThat(snapshot.getLastMovementId(), is(equalTo(savedMovements.get(2).getId())));
+    }
+
+    @Test
+    void whenChangesAreQueuedOutOfOrderThenTheOpeningSnapshotIsTakenFromTheLedger() throws CoffeeNotFoundException {
+        // given
+        givenRepositoriesRecordWhatIsSaved();
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        CoffeeDTO currentCoffeeDTO = CoffeeDTOBuilder.builder().quantity(25).build().toCoffeeDTO();
+        currentCoffeeDTO.setVersion(2L);
+        when(coffeeStockLedger.current(coffeeDTO.getId())).thenReturn(currentCoffeeDTO);
+
+        // when
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 25, 5, 2L, StockMovementReason.INCREMENT));
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 20, 10, 1L, StockMovementReason.INCREMENT));
+        stockMovementRecorder.flush();
+
+        // then
+        assertThat(savedSnapshots.size(), is(equalTo(1)));
+        assertThat(savedSnapshots.get(0).getQuantity(), is(equalTo(10L)));
+    }
+
+    @Test
+    void whenFlushesKeepFailingThenRetriedMovementsAreBoundedByTheQueueCapacity() {
+        // given
+        stockMovementRecorder = new StockMovementRecorder(stockMovementRepository, stockSnapshotRepository, coffeeStockLedger,
+                new TransactionTemplate(transactionManager), 2, 3);
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        List<Integer> attemptedSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            attemptedSizes.add(((List<?>) invocation.getArgument(0)).size());
+            throw new IllegalStateException("database unavailable");
+        }).when(stockMovementRepository).saveAll(anyList());
+
+        // when
+        for (int attempt = 0; attempt < 3; attempt++) {
+            stockMovementRecorder.onStockChanged(changed(coffeeDTO, 15, 1, StockMovementReason.INCREMENT));
+            try {
+                stockMovementRecorder.flush();
+            } catch (IllegalStateException e) {
+                // the database stays unavailable
+            }
+        }
+
+        // then
+        assertThat(attemptedSizes, is(equalTo(Arrays.asList(1, 2, 3))));
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 15, 1, StockMovementReason.INCREMENT));
+        assertThrows(IllegalStateException.class, () -> stockMovementRecorder.flush());
+        assertThat(attemptedSizes.get(3), is(equalTo(3)));
+    }
+
+    @Test
+    void whenAFlushFailsThenItsMovementsAreRetriedOnTheNextOne() {
+        // given
+        CoffeeDTO coffeeDTO = CoffeeDTOBuilder.builder().build().toCoffeeDTO();
+        doThrow(new IllegalStateException("database unavailable"))
+                .doAnswer(invocation -> {
+                    savedMovements.addAll(invocation.getArgument(0));
+                    return invocation.getArgument(0);
+                })
+                .when(stockMovementRepository).saveAll(anyList());
+
+        // when
+        stockMovementRecorder.onStockChanged(changed(coffeeDTO, 15, 5, StockMovementReason.INCREMENT));
+        try {
+            stockMovementRecorder.flush();
+        } catch (IllegalStateException e) {
+            assertThat(savedMovements, is(empty()));
+        }
+        stockMovementRecorder.flush();
+
+        // then
+        verify(stockMovementRepository, times(2)).saveAll(anyList());
+        assertThat(savedMovements.size(), is(equalTo(1)));
+    }
+
+    private void givenRepositoriesRecordWhatIsSaved() {
+        AtomicLong sequence = new AtomicLong();
+        doAnswer(invocation -> {
+            List<StockMovement> movements = invocation.getArgument(0);
+            movements.forEach(movement -> movement.setId(sequence.incrementAndGet()));
+            savedMovements.addAll(movements);
+            return movements;
+        }).when(stockMovementRepository).saveAll(anyList());
+        doAnswer(invocation -> {
+            savedSnapshots.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(stockSnapshotRepository).saveAll(anyList());
+    }
+
+    private static CoffeeStockChangedEvent changed(CoffeeDTO coffeeDTO, int quantity, int delta, StockMovementReason reason) {
+        return changed(coffeeDTO, quantity, delta, null, reason);
+    }
+
+    private static CoffeeStockChangedEvent changed(CoffeeDTO coffeeDTO, int quantity, int delta, Long version, StockMovementReason reason) {
+        CoffeeDTO changedCoffeeDTO = CoffeeDTO.builder()
+                .id(coffeeDTO.getId())
+                .name(coffeeDTO.getName())
+                .brand(coffeeDTO.getBrand())
+                .max(coffeeDTO.getMax())
+                .quantity(quantity)
+                .type(coffeeDTO.getType())
+                .version(version)
+                .build();
+        return new CoffeeStockChangedEvent(changedCoffeeDTO, delta, reason);
+    }
+}
@@ -0,0 +1,73 @@
+package com.projetocoffeestock.service;
+
+import com.projetocoffeestock.dto.StockMovementPageDTO;
+import com.projetocoffeestock.entity.StockMovement;
+import com.projetocoffeestock.entity.StockSnapshot;
+import com.projetocoffeestock.enums.StockMovementReason;
+import com.projetocoffeestock.repository.StockMovementRepository;
+import com.projetocoffeestock.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockMovementServiceTest {
+
+    private static final long COFFEE_ID = 1L;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @InjectMocks
+    private StockMovementService stockMovementService;
+
+    @Test
+    void whenQuantityIsAskedAtAMovementThenItIsTheSnapshotPlusTheTailOfTheLog() {
+        // given
+        when(stockSnapshotRepository.findTopByCoffeeIdAndLastMovementIdLessThanEqualOrderByLastMovementIdDesc(COFFEE_ID, 250L))
+                .thenReturn(Optional.of(new StockSnapshot(7L, COFFEE_ID, 200L, 30L, Instant.now())));
+        when(stockMovementRepository.sumDeltas(COFFEE_ID, 200L, 250L)).thenReturn(-4L);
+
+        // when
+        long quantity = stockMovementService.quantityAt(COFFEE_ID, 250L);
+
+        // then
+        assertThat(quantity, is(equalTo(26L)));
+    }
+
+    @Test
+    void whenHistoryIsReplayedThenEachMovementCarriesTheQuantityAfterIt() {
+        // given
+        when(stockSnapshotRepository.findTopByCoffeeIdAndLastMovementIdLessThanEqualOrderByLastMovementIdDesc(COFFEE_ID, 10L))
+                .thenReturn(Optional.of(new StockSnapshot(1L, COFFEE_ID, 10L, 12L, Instant.now())));
+        when(stockMovementRepository.sumDeltas(COFFEE_ID, 10L, 10L)).thenReturn(0L);
+        when(stockMovementRepository.findByCoffeeIdAndIdGreaterThanOrderByIdAsc(COFFEE_ID, 10L, PageRequest.of(0, 5)))
+                .thenReturn(Arrays.asList(
+                        new StockMovement(11L, COFFEE_ID, 8, StockMovementReason.INCREMENT, Instant.now()),
+                        new StockMovement(14L, COFFEE_ID, -15, StockMovementReason.DECREMENT, Instant.now())));
+
+        // when
+        StockMovementPageDTO page = stockMovementService.history(COFFEE_ID, 10L, 5);
+
+        // then
+        assertThat(page.getContent().get(0).getQuantityAfter(), is(equalTo(20L)));
+        assertThat(page.getContent().get(1).getQuantityAfter(), is(equalTo(5L)));
+        assertThat(page.getNextAfterId(), is(nullValue()));
+    }
+}